@@ -0,0 +1,147 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import org.jlab.clara.engine.Engine;
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clara.engine.EngineStatus;
+import org.jlab.clas.std.services.perf.SyntheticEvents;
+import org.jlab.coda.jevio.EventWriter;
+import org.jlab.coda.jevio.EvioException;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.jlab.jnp.hipo.io.HipoWriter;
+import org.json.JSONObject;
+
+/**
+ * Generates the events and the input files used by the benchmarks.
+ */
+public final class BenchmarkData {
+
+    /**
+     * The approximate size of the generated input files.
+     */
+    public static final int FILE_SIZE = 64 * 1024 * 1024;
+
+    private static final int MIN_EVENTS = 1000;
+
+    private BenchmarkData() { }
+
+    /**
+     * Returns the number of events of the given size in a generated file.
+     *
+     * @param eventSize the size of the events
+     * @return the number of events
+     */
+    public static int eventCount(int eventSize) {
+        return Math.max(FILE_SIZE / eventSize, MIN_EVENTS);
+    }
+
+    /**
+     * Writes an EVIO file.
+     *
+     * @param file the path of the file
+     * @param eventCount the number of events
+     * @param eventSize the size of each event
+     * @throws EvioException if the file could not be written
+     * @throws IOException if the file could not be written
+     */
+    public static void writeEvioFile(Path file, int eventCount, int eventSize)
+            throws EvioException, IOException {
+        EventWriter writer = new EventWriter(file.getFileName().toString(),
+                                             file.getParent().toString(), null,
+                                             0, 0,
+                                             EvioRecordSizer.DEFAULT_RECORD_SIZE,
+                                             EvioRecordSizer.DEFAULT_RECORD_EVENTS,
+                                             EvioRecordSizer.DEFAULT_BUFFER_SIZE,
+                                             ByteOrder.BIG_ENDIAN, null, null,
+                                             true, false);
+        try {
+            ByteBuffer event = SyntheticEvents.evioEvent(eventSize, ByteOrder.BIG_ENDIAN);
+            for (int i = 0; i < eventCount; i++) {
+                writer.writeEvent(event.duplicate());
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Writes a HIPO file.
+     *
+     * @param file the path of the file
+     * @param eventCount the number of events
+     * @param eventSize the size of each event
+     */
+    public static void writeHipoFile(Path file, int eventCount, int eventSize) {
+        HipoWriter writer = new HipoWriter();
+        writer.open(file.toString());
+        try {
+            HipoEvent event = SyntheticEvents.hipoEvent(eventSize);
+            for (int i = 0; i < eventCount; i++) {
+                writer.writeEvent(event);
+            }
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Opens the given file with a reader or writer service,
+     * like the orchestrator does.
+     *
+     * @param service the I/O service
+     * @param file the input or output file
+     * @param opts the service options
+     */
+    public static void openFile(Engine service, Path file, JSONObject opts) {
+        JSONObject config = new JSONObject(opts.toString());
+        config.put("action", "open");
+        config.put("file", file.toString());
+        configure(service, config);
+    }
+
+    /**
+     * Closes the file of a reader or writer service.
+     *
+     * @param service the I/O service
+     */
+    public static void closeFile(Engine service) {
+        JSONObject config = new JSONObject();
+        config.put("action", "close");
+        configure(service, config);
+    }
+
+    private static void configure(Engine service, JSONObject config) {
+        EngineData input = new EngineData();
+        input.setData(EngineDataType.JSON.mimeType(), config.toString());
+        EngineData output = service.configure(input);
+        if (output != null && output.getStatus() == EngineStatus.ERROR) {
+            throw new IllegalStateException(output.getDescription());
+        }
+    }
+
+    /**
+     * Deletes a directory with all its content.
+     *
+     * @param dir the directory
+     * @throws IOException if the directory could not be deleted
+     */
+    public static void deleteDirectory(Path dir) throws IOException {
+        if (dir == null || !Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            Path[] paths = files.sorted(Comparator.reverseOrder()).toArray(Path[]::new);
+            for (Path path : paths) {
+                Files.delete(path);
+            }
+        }
+    }
+}
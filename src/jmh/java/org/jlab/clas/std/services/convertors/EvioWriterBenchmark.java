@@ -0,0 +1,82 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jlab.clara.std.services.EventWriterException;
+import org.jlab.clas.std.services.perf.SyntheticEvents;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the rate of events written by {@link EvioToEvioWriter}.
+ * A new output file is written on each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class EvioWriterBenchmark {
+
+    @Param({ "1024", "65536" })
+    public int eventSize;
+
+    @Param({ "0", "64" })
+    public int writeQueue;
+
+    @Param({ "none", "lz4" })
+    public String compression;
+
+    private Path dir;
+    private ByteBuffer event;
+    private EvioToEvioWriter service;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("evio-writer-benchmark");
+        event = SyntheticEvents.evioEvent(eventSize, ByteOrder.BIG_ENDIAN);
+    }
+
+    @Setup(Level.Iteration)
+    public void openFile() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put("overwrite", true);
+        opts.put("write_queue", writeQueue);
+        opts.put("compression", compression);
+        service = new EvioToEvioWriter();
+        BenchmarkData.openFile(service, dir.resolve("output.evio"), opts);
+    }
+
+    @Benchmark
+    public void writeEvent() throws EventWriterException {
+        service.writeEvent(event.duplicate());
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeFile() throws Exception {
+        BenchmarkData.closeFile(service);
+        Files.deleteIfExists(dir.resolve("output.evio"));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkData.deleteDirectory(dir);
+    }
+}
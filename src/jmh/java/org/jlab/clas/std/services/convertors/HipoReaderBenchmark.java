@@ -0,0 +1,65 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the rate of events read by {@link HipoToHipoReader}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HipoReaderBenchmark {
+
+    @Param({ "1024", "65536" })
+    public int eventSize;
+
+    private Path dir;
+    private HipoToHipoReader service;
+    private int eventCount;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("hipo-reader-benchmark");
+        Path file = dir.resolve("input.hipo");
+        BenchmarkData.writeHipoFile(file, BenchmarkData.eventCount(eventSize), eventSize);
+
+        JSONObject opts = new JSONObject();
+        service = new HipoToHipoReader();
+        BenchmarkData.openFile(service, file, opts);
+        eventCount = service.readEventCount();
+    }
+
+    @Benchmark
+    public Object readEvent() throws EventReaderException {
+        Object event = service.readEvent(next);
+        next = next + 1 < eventCount ? next + 1 : 0;
+        return event;
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkData.closeFile(service);
+        BenchmarkData.deleteDirectory(dir);
+    }
+}
@@ -0,0 +1,84 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jlab.clara.std.services.EventWriterException;
+import org.jlab.clas.std.services.util.LazyHipoEvent;
+import org.jlab.clas.std.services.perf.SyntheticEvents;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the rate of events written by {@link HipoToHipoWriter}.
+ * A new output file is written on each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class HipoWriterBenchmark {
+
+    @Param({ "1024", "65536" })
+    public int eventSize;
+
+    @Param({ "0", "64" })
+    public int writeQueue;
+
+    @Param({ "0", "1" })
+    public int compression;
+
+    private Path dir;
+    private Path schemaDir;
+    private LazyHipoEvent event;
+    private HipoToHipoWriter service;
+
+    @Setup
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("hipo-writer-benchmark");
+        schemaDir = Files.createDirectory(dir.resolve("schema"));
+        event = new LazyHipoEvent(SyntheticEvents.hipoEvent(eventSize).getDataBuffer());
+    }
+
+    @Setup(Level.Iteration)
+    public void openFile() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put("write_queue", writeQueue);
+        opts.put("compression", compression);
+        opts.put("schema_dir", schemaDir.toString());
+        opts.put("schema_filter", false);
+        service = new HipoToHipoWriter();
+        BenchmarkData.openFile(service, dir.resolve("output.hipo"), opts);
+    }
+
+    @Benchmark
+    public void writeEvent() throws EventWriterException {
+        service.writeEvent(event);
+    }
+
+    @TearDown(Level.Iteration)
+    public void closeFile() throws Exception {
+        BenchmarkData.closeFile(service);
+        Files.deleteIfExists(dir.resolve("output.hipo"));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        BenchmarkData.deleteDirectory(dir);
+    }
+}
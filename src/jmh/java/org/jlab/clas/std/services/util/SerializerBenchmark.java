@@ -0,0 +1,122 @@
+package org.jlab.clas.std.services.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jlab.clara.base.error.ClaraException;
+import org.jlab.clas.std.services.perf.SyntheticEvents;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link Clas12Types} serializers.
+ * The read benchmarks deserialize the output of the write benchmarks,
+ * like a message received from the transport.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SerializerBenchmark {
+
+    @Param({ "1024", "65536" })
+    public int eventSize;
+
+    @Param({ "16" })
+    public int bundleSize;
+
+    private ByteBuffer evioEvent;
+    private ByteBuffer evioData;
+    private List<ByteBuffer> evioBundle;
+    private ByteBuffer evioBundleData;
+
+    private HipoEvent hipoEvent;
+    private ByteBuffer hipoData;
+    private List<HipoEvent> hipoBundle;
+    private ByteBuffer hipoBundleData;
+
+    @Setup
+    public void setup() throws ClaraException {
+        evioEvent = SyntheticEvents.evioEvent(eventSize, ByteOrder.BIG_ENDIAN);
+        evioData = Clas12Types.EVIO.serializer().write(evioEvent);
+        evioBundle = new ArrayList<>();
+        for (int i = 0; i < bundleSize; i++) {
+            evioBundle.add(SyntheticEvents.evioEvent(eventSize, ByteOrder.BIG_ENDIAN));
+        }
+        evioBundleData = Clas12Types.EVIO_BUNDLE.serializer().write(evioBundle);
+
+        hipoEvent = SyntheticEvents.hipoEvent(eventSize);
+        hipoData = Clas12Types.HIPO.serializer().write(hipoEvent);
+        hipoBundle = new ArrayList<>();
+        for (int i = 0; i < bundleSize; i++) {
+            hipoBundle.add(SyntheticEvents.hipoEvent(eventSize));
+        }
+        hipoBundleData = Clas12Types.HIPO_BUNDLE.serializer().write(hipoBundle);
+    }
+
+    @Benchmark
+    public ByteBuffer writeEvio() throws ClaraException {
+        return Clas12Types.EVIO.serializer().write(evioEvent);
+    }
+
+    @Benchmark
+    public Object readEvio() throws ClaraException {
+        return Clas12Types.EVIO.serializer().read(evioData.duplicate());
+    }
+
+    @Benchmark
+    public ByteBuffer writeEvioBundle() throws ClaraException {
+        return Clas12Types.EVIO_BUNDLE.serializer().write(evioBundle);
+    }
+
+    @Benchmark
+    public Object readEvioBundle() throws ClaraException {
+        return Clas12Types.EVIO_BUNDLE.serializer().read(evioBundleData.duplicate());
+    }
+
+    @Benchmark
+    public ByteBuffer writeHipo() throws ClaraException {
+        return Clas12Types.HIPO.serializer().write(hipoEvent);
+    }
+
+    @Benchmark
+    public Object readHipo() throws ClaraException {
+        return Clas12Types.HIPO.serializer().read(hipoData.duplicate());
+    }
+
+    @Benchmark
+    public Object readHipoLazy() throws ClaraException {
+        return Clas12Types.HIPO_LAZY.serializer().read(hipoData.duplicate());
+    }
+
+    @Benchmark
+    public ByteBuffer passHipoLazy() throws ClaraException {
+        Object event = Clas12Types.HIPO_LAZY.serializer().read(hipoData.duplicate());
+        return Clas12Types.HIPO_LAZY.serializer().write(event);
+    }
+
+    @Benchmark
+    public ByteBuffer writeHipoBundle() throws ClaraException {
+        return Clas12Types.HIPO_BUNDLE.serializer().write(hipoBundle);
+    }
+
+    @Benchmark
+    public Object readHipoBundle() throws ClaraException {
+        return Clas12Types.HIPO_BUNDLE.serializer().read(hipoBundleData.duplicate());
+    }
+}
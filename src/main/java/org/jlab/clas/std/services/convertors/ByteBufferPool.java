@@ -0,0 +1,178 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A process-wide pool of reusable event buffers.
+ * <p>
+ * The buffers are grouped in size classes (powers of two from 1 KB to 64 MB).
+ * A request is served with a buffer of the smallest class that fits,
+ * with its limit set to the requested size.
+ * Larger requests are not pooled.
+ * <p>
+ * The buffers are returned to the pool once the event has been consumed,
+ * usually by the writer service after the event is saved.
+ * A returned buffer must not be used anymore by anybody else.
+ * Only the buffers handed out by the pool are taken back (they are tracked
+ * by identity, with weak references), so any other buffer, like the slices
+ * of a received message, can be returned safely and is just ignored.
+ * The total capacity of the idle buffers is limited, and the buffers
+ * returned over the limit are left to the garbage collector.
+ */
+final class ByteBufferPool {
+
+    private static final int MIN_SHIFT = 10;
+    private static final int MAX_SHIFT = 26;
+
+    private static final long MAX_POOLED_BYTES = 256L * 1024 * 1024;
+
+    private static final ByteBufferPool HEAP_POOL = new ByteBufferPool(false);
+    private static final ByteBufferPool DIRECT_POOL = new ByteBufferPool(true);
+
+    private final boolean direct;
+    private final List<Queue<ByteBuffer>> classes;
+    private final AtomicLong pooledBytes = new AtomicLong();
+
+    // the buffers allocated by the pool, and if they are in use
+    private final Map<BufferRef, Boolean> owned = new ConcurrentHashMap<>();
+    private final ReferenceQueue<ByteBuffer> collected = new ReferenceQueue<>();
+
+    /**
+     * A weak reference to a buffer, compared by the identity of the buffer
+     * (the equality of byte buffers compares their content).
+     */
+    private static final class BufferRef extends WeakReference<ByteBuffer> {
+
+        private final int hash;
+
+        BufferRef(ByteBuffer buffer, ReferenceQueue<ByteBuffer> queue) {
+            super(buffer, queue);
+            this.hash = System.identityHashCode(buffer);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof BufferRef)) {
+                return false;
+            }
+            ByteBuffer buffer = get();
+            return buffer != null && buffer == ((BufferRef) obj).get();
+        }
+    }
+
+    private ByteBufferPool(boolean direct) {
+        this.direct = direct;
+        this.classes = new ArrayList<>(MAX_SHIFT - MIN_SHIFT + 1);
+        for (int shift = MIN_SHIFT; shift <= MAX_SHIFT; shift++) {
+            classes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Returns the shared pool of heap or direct buffers.
+     *
+     * @param direct true for direct buffers
+     * @return the pool
+     */
+    static ByteBufferPool get(boolean direct) {
+        return direct ? DIRECT_POOL : HEAP_POOL;
+    }
+
+    /**
+     * Returns the given buffer to the shared pool of its kind.
+     *
+     * @param buffer a buffer that is not used anymore
+     */
+    static void recycle(ByteBuffer buffer) {
+        get(buffer.isDirect()).release(buffer);
+    }
+
+    /**
+     * Gets a buffer with the given size.
+     * The buffer is cleared, with its limit set to the given size,
+     * and big-endian byte order.
+     *
+     * @param size the required size
+     * @return a buffer from the pool, or a new buffer
+     */
+    ByteBuffer acquire(int size) {
+        int index = classIndex(size);
+        if (index < 0) {
+            return allocate(size);
+        }
+        expungeCollected();
+        ByteBuffer buffer = classes.get(index).poll();
+        if (buffer == null) {
+            buffer = allocate(1 << (index + MIN_SHIFT));
+            owned.put(new BufferRef(buffer, collected), Boolean.TRUE);
+        } else {
+            pooledBytes.addAndGet(-buffer.capacity());
+            owned.replace(new BufferRef(buffer, null), Boolean.FALSE, Boolean.TRUE);
+            buffer.clear();
+        }
+        buffer.limit(size);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool.
+     * Buffers that were not handed out by this pool, or that were already
+     * returned, are ignored.
+     *
+     * @param buffer a buffer that is not used anymore
+     */
+    void release(ByteBuffer buffer) {
+        BufferRef ref = new BufferRef(buffer, null);
+        if (!owned.replace(ref, Boolean.TRUE, Boolean.FALSE)) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        int index = classIndex(capacity);
+        if (pooledBytes.addAndGet(capacity) > MAX_POOLED_BYTES) {
+            pooledBytes.addAndGet(-capacity);
+            owned.remove(ref);
+            return;
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        classes.get(index).offer(buffer);
+    }
+
+    private void expungeCollected() {
+        Reference<? extends ByteBuffer> ref = collected.poll();
+        while (ref != null) {
+            owned.remove(ref);
+            ref = collected.poll();
+        }
+    }
+
+    private static int classIndex(int size) {
+        int shift = size <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(size - 1);
+        if (shift > MAX_SHIFT) {
+            return -1;
+        }
+        return Math.max(shift, MIN_SHIFT) - MIN_SHIFT;
+    }
+
+    private ByteBuffer allocate(int size) {
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+}
@@ -0,0 +1,354 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * A list of input files presented as a single continuous stream of events.
+ * <p>
+ * The events of each file are counted when the stream is opened, without
+ * keeping the files open (see {@link Opener#countEvents}). Then only the file
+ * with the current event is kept open, and when a file is reached, the next
+ * file is opened on a background thread, so it is ready when the current file
+ * is exhausted. At most two files are open at the same time.
+ *
+ * @param <T> the type of the events
+ */
+final class ChainedEventFile<T> implements EventFile<T> {
+
+    static final String CONF_FILES = "files";
+
+    private static final String GLOB_CHARS = "*?[{";
+
+    private static final int COUNT_THREADS = 4;
+
+    /**
+     * Opens a single input file.
+     * It may be called from several threads at the same time.
+     *
+     * @param <T> the type of the events
+     */
+    @FunctionalInterface
+    interface Opener<T> {
+
+        EventFile<T> open(Path file) throws EventReaderException;
+
+        /**
+         * Counts the events of a file, without keeping it open.
+         * The default opens the file and closes it after counting the events.
+         * Readers should override it to get the count from an index or the
+         * header of the file.
+         *
+         * @param file the input file
+         * @return the number of events in the file
+         * @throws EventReaderException if the file could not be read
+         */
+        default int countEvents(Path file) throws EventReaderException {
+            EventFile<T> eventFile = open(file);
+            try {
+                return eventFile.getEventCount();
+            } finally {
+                eventFile.close();
+            }
+        }
+    }
+
+    private final List<Path> files;
+    private final Opener<T> opener;
+    private final int[] starts;
+    private final ByteOrder byteOrder;
+    private final ExecutorService executor;
+
+    private EventFile<T> current;
+    private int currentIndex;
+
+    private Future<EventFile<T>> next;
+    private int nextIndex;
+
+    private ChainedEventFile(String name, List<Path> files, Opener<T> opener)
+            throws EventReaderException {
+        this.files = files;
+        this.opener = opener;
+        this.starts = new int[files.size() + 1];
+
+        EventFile<T> first = opener.open(files.get(0));
+        try {
+            int[] counts = countEvents(name, files, opener);
+            counts[0] = first.getEventCount();
+            for (int i = 0; i < files.size(); i++) {
+                long end = (long) starts[i] + counts[i];
+                if (end > Integer.MAX_VALUE) {
+                    throw new EventReaderException("Too many events in the input files");
+                }
+                starts[i + 1] = (int) end;
+            }
+        } catch (EventReaderException e) {
+            first.close();
+            throw e;
+        }
+        this.byteOrder = first.getByteOrder();
+
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, name + "-open");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.current = first;
+        this.currentIndex = 0;
+        this.nextIndex = -1;
+        openNext();
+    }
+
+    // counts all files but the first, on a few threads
+    private static <T> int[] countEvents(String name, List<Path> files, Opener<T> opener)
+            throws EventReaderException {
+        int[] counts = new int[files.size()];
+        if (files.size() == 1) {
+            return counts;
+        }
+        int threads = Math.min(files.size() - 1, COUNT_THREADS);
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, name + "-count-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Integer>> futures = new ArrayList<>(files.size());
+            for (int i = 1; i < files.size(); i++) {
+                Path file = files.get(i);
+                futures.add(executor.submit(() -> opener.countEvents(file)));
+            }
+            for (int i = 1; i < files.size(); i++) {
+                counts[i] = await(futures.get(i - 1));
+            }
+            return counts;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Opens the given list of files as a single stream of events.
+     *
+     * @param <T> the type of the events
+     * @param name the name used for the background thread
+     * @param files the input files, in order
+     * @param opener opens each input file
+     * @return the chained files
+     * @throws EventReaderException if some file could not be opened
+     */
+    static <T> ChainedEventFile<T> open(String name, List<Path> files, Opener<T> opener)
+            throws EventReaderException {
+        if (files.isEmpty()) {
+            throw new EventReaderException("No input files");
+        }
+        return new ChainedEventFile<>(name, files, opener);
+    }
+
+    /**
+     * Gets the list of input files configured for the reader.
+     * <p>
+     * The files are given by the {@value #CONF_FILES} option, if present.
+     * Otherwise, if the name of the configured file is a glob pattern,
+     * all the matching files of the directory are used, sorted by name.
+     * Otherwise only the configured file is used.
+     *
+     * @param file the configured input file
+     * @param opts the reader configuration
+     * @return the input files, in order
+     * @throws EventReaderException if the list of files could not be obtained
+     */
+    static List<Path> inputFiles(Path file, JSONObject opts) throws EventReaderException {
+        try {
+            if (opts.has(CONF_FILES)) {
+                JSONArray array = opts.getJSONArray(CONF_FILES);
+                List<Path> files = new ArrayList<>(array.length());
+                for (int i = 0; i < array.length(); i++) {
+                    files.add(file.getFileSystem().getPath(array.getString(i)));
+                }
+                return files;
+            }
+            String pattern = file.getFileName().toString();
+            if (!isGlob(pattern)) {
+                return Collections.singletonList(file);
+            }
+            Path dir = file.toAbsolutePath().getParent();
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, pattern)) {
+                for (Path match : stream) {
+                    files.add(match);
+                }
+            }
+            Collections.sort(files);
+            return files;
+        } catch (JSONException | IOException e) {
+            throw new EventReaderException(e);
+        }
+    }
+
+    private static boolean isGlob(String name) {
+        for (char c : GLOB_CHARS.toCharArray()) {
+            if (name.indexOf(c) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of chained files.
+     *
+     * @return the number of files
+     */
+    int getFileCount() {
+        return files.size();
+    }
+
+    @Override
+    public int getEventCount() {
+        return starts[files.size()];
+    }
+
+    @Override
+    public ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    @Override
+    public T readEvent(int eventNumber) throws EventReaderException {
+        int localEvent = seek(eventNumber);
+        return current.readEvent(localEvent);
+    }
+
+    @Override
+    public T readEvent(int eventNumber, Predicate<? super T> filter)
+            throws EventReaderException {
+        int localEvent = seek(eventNumber);
+        return current.readEvent(localEvent, filter);
+    }
+
+    @Override
+    public T peekEvent(int eventNumber) throws EventReaderException {
+        int localEvent = seek(eventNumber);
+        return current.peekEvent(localEvent);
+    }
+
+    /**
+     * Switches to the file that contains the given event.
+     *
+     * @param eventNumber the number of the event in the stream
+     * @return the number of the event in the current file
+     */
+    private int seek(int eventNumber) throws EventReaderException {
+        if (eventNumber < 0 || eventNumber >= getEventCount()) {
+            throw new EventReaderException("Invalid event number: " + eventNumber);
+        }
+        int index = fileIndex(eventNumber);
+        if (index != currentIndex) {
+            switchTo(index);
+        }
+        return eventNumber - starts[index];
+    }
+
+    /**
+     * Returns the index of the file that contains the given event.
+     * Empty files are skipped.
+     *
+     * @param eventNumber a valid event number of the stream
+     * @return the index of the file
+     */
+    int fileIndex(int eventNumber) {
+        int index = Arrays.binarySearch(starts, eventNumber);
+        if (index < 0) {
+            return -index - 2;
+        }
+        // skip empty files
+        while (starts[index + 1] == eventNumber) {
+            index++;
+        }
+        return index;
+    }
+
+    private void switchTo(int index) throws EventReaderException {
+        current.close();
+        current = null;
+        if (index == nextIndex) {
+            current = await(next);
+            next = null;
+        } else {
+            discardNext();
+            current = opener.open(files.get(index));
+        }
+        currentIndex = index;
+        openNext();
+    }
+
+    private void openNext() {
+        int index = currentIndex + 1;
+        if (index < files.size()) {
+            Path file = files.get(index);
+            next = executor.submit(() -> opener.open(file));
+            nextIndex = index;
+        } else {
+            next = null;
+            nextIndex = -1;
+        }
+    }
+
+    private static <V> V await(Future<V> result) throws EventReaderException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventReaderException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof EventReaderException) {
+                throw (EventReaderException) cause;
+            }
+            throw new EventReaderException(cause);
+        }
+    }
+
+    private void discardNext() {
+        if (next != null) {
+            // wait for the open to finish, so the file is not leaked
+            try {
+                await(next).close();
+            } catch (EventReaderException e) {
+                System.err.println("Could not open file: " + e.getMessage());
+            }
+            next = null;
+            nextIndex = -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        discardNext();
+        executor.shutdown();
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteOrder;
+import java.util.function.Predicate;
+
+import org.jlab.clara.std.services.EventReaderException;
+
+/**
+ * An open input file that can read its events by number.
+ *
+ * @param <T> the type of the events
+ */
+interface EventFile<T> {
+
+    /**
+     * Returns the number of events in the file.
+     *
+     * @return the event count
+     */
+    int getEventCount();
+
+    /**
+     * Returns the byte order of the events in the file.
+     *
+     * @return the byte order
+     */
+    ByteOrder getByteOrder();
+
+    /**
+     * Reads the given event.
+     *
+     * @param eventNumber the number of the event, starting at zero
+     * @return the event
+     * @throws EventReaderException if the event could not be read
+     */
+    T readEvent(int eventNumber) throws EventReaderException;
+
+    /**
+     * Reads the given event only if it is accepted by the filter.
+     * The default implementation reads the full event and then checks it,
+     * so an accepted event is read only once. The files that can check the
+     * event with {@link #peekEvent} read only the accepted events.
+     *
+     * @param eventNumber the number of the event, starting at zero
+     * @param filter the filter of the events
+     * @return the event, or null if it was rejected
+     * @throws EventReaderException if the event could not be read
+     */
+    default T readEvent(int eventNumber, Predicate<? super T> filter)
+            throws EventReaderException {
+        T event = readEvent(eventNumber);
+        return filter.test(event) ? event : null;
+    }
+
+    /**
+     * Reads the given event only to inspect it.
+     * The returned event may be a view of an internal buffer, or contain only
+     * the header of the event, so it must not be kept after the next read.
+     * The default implementation reads the full event.
+     *
+     * @param eventNumber the number of the event, starting at zero
+     * @return the event, or its header
+     * @throws EventReaderException if the event could not be read
+     */
+    default T peekEvent(int eventNumber) throws EventReaderException {
+        return readEvent(eventNumber);
+    }
+
+    /**
+     * Closes the file.
+     */
+    void close();
+}
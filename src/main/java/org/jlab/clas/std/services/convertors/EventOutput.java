@@ -0,0 +1,38 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.file.Path;
+
+import org.jlab.clara.std.services.EventWriterException;
+
+/**
+ * An open output that saves events.
+ *
+ * @param <T> the type of the events
+ */
+interface EventOutput<T> {
+
+    /**
+     * Opens a single output file.
+     *
+     * @param <T> the type of the events
+     */
+    @FunctionalInterface
+    interface Opener<T> {
+        EventOutput<T> open(Path file) throws EventWriterException;
+    }
+
+    /**
+     * Saves the given event.
+     *
+     * @param event the event to be saved
+     * @throws EventWriterException if the event could not be saved
+     */
+    void writeEvent(T event) throws EventWriterException;
+
+    /**
+     * Closes the output.
+     *
+     * @throws EventWriterException if the pending events could not be saved
+     */
+    void close() throws EventWriterException;
+}
@@ -0,0 +1,137 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+import org.jlab.clara.std.services.EventWriterException;
+import org.json.JSONObject;
+
+/**
+ * Creates the output of a writer service from its configuration.
+ * <p>
+ * The output is a single file by default. The events can also be:
+ * <ul>
+ * <li>written by a background I/O thread ({@value #CONF_WRITE_QUEUE})
+ * <li>split into a sequence of files of limited size ({@value #CONF_MAX_FILE_SIZE})
+ * <li>distributed over several files, each one with its own I/O thread
+ *     ({@value #CONF_SHARDS})
+ * </ul>
+ */
+final class EventOutputs {
+
+    static final String CONF_WRITE_QUEUE = "write_queue";
+    static final String CONF_SHARDS = "shards";
+    static final String CONF_MAX_FILE_SIZE = "max_file_size";
+
+    static final int DEFAULT_SHARD_QUEUE = 64;
+
+    private EventOutputs() { }
+
+    /**
+     * Checks if the configured output is written by background threads.
+     *
+     * @param opts the writer configuration
+     * @return true if the events are queued for I/O threads
+     */
+    static boolean isQueued(JSONObject opts) {
+        return opts.optInt(CONF_WRITE_QUEUE, 0) > 0 || opts.optInt(CONF_SHARDS, 1) > 1;
+    }
+
+    /**
+     * Creates the configured output.
+     *
+     * @param <T> the type of the events
+     * @param name the name of the service, used for the I/O threads
+     * @param file the configured output file
+     * @param opts the writer configuration
+     * @param opener opens each output file
+     * @param sizer returns the size of an event in the output file
+     * @param metrics the metrics of the service, recorded by the I/O threads
+     * @return the output for the events
+     * @throws EventWriterException if the output files could not be opened
+     */
+    static <T> EventOutput<T> create(String name, Path file, JSONObject opts,
+                                     EventOutput.Opener<T> opener,
+                                     ToLongFunction<T> sizer,
+                                     ServiceMetrics metrics)
+            throws EventWriterException {
+        int queueSize = opts.optInt(CONF_WRITE_QUEUE, 0);
+        int shards = Math.max(opts.optInt(CONF_SHARDS, 1), 1);
+        long maxFileSize = opts.optLong(CONF_MAX_FILE_SIZE, 0);
+
+        if (queueSize > 0) {
+            System.out.printf("%s service: write queue = %d%n", name, queueSize);
+        }
+        if (shards > 1) {
+            System.out.printf("%s service: shards = %d%n", name, shards);
+        }
+        if (maxFileSize > 0) {
+            System.out.printf("%s service: max file size = %d%n", name, maxFileSize);
+        }
+
+        if (shards == 1 && maxFileSize <= 0) {
+            EventOutput<T> output = opener.open(file);
+            if (queueSize > 0) {
+                return new EventWriteQueue<>(name, output, queueSize, metrics);
+            }
+            return output;
+        }
+
+        List<EventOutput<T>> outputs = new ArrayList<>(shards);
+        try {
+            for (int i = 0; i < shards; i++) {
+                int shard = shards > 1 ? i : -1;
+                EventOutput<T> output;
+                if (maxFileSize > 0) {
+                    output = new RollingOutput<>(p -> opener.open(partFile(file, shard, p)),
+                                                 sizer, maxFileSize);
+                } else {
+                    output = opener.open(partFile(file, shard, -1));
+                }
+                if (shards > 1 || queueSize > 0) {
+                    int capacity = queueSize > 0 ? queueSize : DEFAULT_SHARD_QUEUE;
+                    String threadName = shards > 1 ? name + "-" + i : name;
+                    output = new EventWriteQueue<>(threadName, output, capacity, metrics);
+                }
+                outputs.add(output);
+            }
+        } catch (EventWriterException e) {
+            for (EventOutput<T> output : outputs) {
+                try {
+                    output.close();
+                } catch (EventWriterException ce) {
+                    e.addSuppressed(ce);
+                }
+            }
+            throw e;
+        }
+        return outputs.size() == 1 ? outputs.get(0) : new ShardedOutput<>(outputs);
+    }
+
+    /**
+     * Returns the name of a shard or part of the configured output file.
+     * For example, part 3 of shard 2 of {@code out.evio} is
+     * {@code out_2_0003.evio}.
+     *
+     * @param file the configured output file
+     * @param shard the shard number, or -1 if the output is not sharded
+     * @param part the part number, or -1 if the output is not split
+     * @return the path of the file
+     */
+    static Path partFile(Path file, int shard, int part) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String stem = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        StringBuilder sb = new StringBuilder(stem);
+        if (shard >= 0) {
+            sb.append('_').append(shard);
+        }
+        if (part >= 0) {
+            sb.append('_').append(String.format("%04d", part));
+        }
+        return file.resolveSibling(sb.append(ext).toString());
+    }
+}
@@ -0,0 +1,167 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jlab.clara.std.services.EventReaderException;
+
+/**
+ * Reads events ahead of the requests on a background thread.
+ * <p>
+ * The events that follow the last requested event are read into a bounded
+ * queue, so a sequential request can be served from memory.
+ * A request for any other event discards the queued events and restarts the
+ * read-ahead from the requested event.
+ * <p>
+ * By default all reads run on the same background thread, so the source is
+ * never accessed concurrently. With more threads, the events are still
+ * returned in order, but the source must be thread-safe.
+ *
+ * @param <T> the type of the events
+ */
+final class EventPrefetcher<T> {
+
+    /**
+     * Reads a single event from the input file.
+     *
+     * @param <T> the type of the events
+     */
+    @FunctionalInterface
+    interface EventSource<T> {
+        T readEvent(int eventNumber) throws EventReaderException;
+    }
+
+    private final EventSource<T> source;
+    private final int eventCount;
+    private final int depth;
+
+    private final ExecutorService executor;
+    private final Deque<Future<T>> queue;
+    private int head;
+
+    /**
+     * Creates a new prefetcher.
+     *
+     * @param name the name used for the background thread
+     * @param source the source of the events
+     * @param eventCount the number of events in the source
+     * @param depth the maximum number of events read ahead
+     */
+    EventPrefetcher(String name, EventSource<T> source, int eventCount, int depth) {
+        this(name, source, eventCount, depth, 1);
+    }
+
+    /**
+     * Creates a new prefetcher that reads the events on a pool of threads.
+     *
+     * @param name the name used for the background threads
+     * @param source the thread-safe source of the events
+     * @param eventCount the number of events in the source
+     * @param depth the maximum number of events read ahead
+     * @param threads the number of background threads
+     */
+    EventPrefetcher(String name, EventSource<T> source, int eventCount, int depth,
+                    int threads) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("invalid prefetch depth: " + depth);
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("invalid prefetch threads: " + threads);
+        }
+        this.source = source;
+        this.eventCount = eventCount;
+        this.depth = depth;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, name + "-prefetch-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.queue = new ArrayDeque<>(depth);
+        this.head = -1;
+    }
+
+    /**
+     * Returns the given event, waiting for it to be read if necessary.
+     *
+     * @param eventNumber the number of the requested event
+     * @return the event
+     * @throws EventReaderException if the event could not be read
+     */
+    T readEvent(int eventNumber) throws EventReaderException {
+        if (eventNumber != head || queue.isEmpty()) {
+            restart(eventNumber);
+        }
+        Future<T> next = queue.poll();
+        head++;
+        fill();
+        return await(next);
+    }
+
+    private void restart(int eventNumber) {
+        discard();
+        head = eventNumber;
+        if (eventNumber >= eventCount) {
+            // let the source report the error
+            queue.add(submit(eventNumber));
+        }
+        fill();
+    }
+
+    private void fill() {
+        int next = head + queue.size();
+        while (queue.size() < depth && next < eventCount) {
+            queue.add(submit(next++));
+        }
+    }
+
+    private Future<T> submit(int eventNumber) {
+        return executor.submit(() -> source.readEvent(eventNumber));
+    }
+
+    private T await(Future<T> event) throws EventReaderException {
+        try {
+            return event.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventReaderException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof EventReaderException) {
+                throw (EventReaderException) cause;
+            }
+            throw new EventReaderException(cause);
+        }
+    }
+
+    private void discard() {
+        // do not interrupt a running read, it may close the file channel
+        for (Future<T> event : queue) {
+            event.cancel(false);
+        }
+        queue.clear();
+    }
+
+    /**
+     * Stops the background threads.
+     * Waits until the current reads (if any) are finished,
+     * so the source can be safely closed after this method returns.
+     */
+    void close() {
+        discard();
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                System.err.println("prefetch thread did not stop");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package org.jlab.clas.std.services.convertors;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * The range of events of the input file that is served by a reader.
+ * <p>
+ * The range can be set explicitly with the {@value #CONF_FIRST_EVENT} and
+ * {@value #CONF_LAST_EVENT} options (both inclusive, starting at zero),
+ * or as the partition {@value #CONF_PARTITION} of {@value #CONF_PARTITIONS}
+ * consecutive partitions of the same size.
+ * The partitions of a file do not overlap and cover the whole file in order,
+ * so the outputs of the partitions can be concatenated.
+ */
+final class EventRange {
+
+    static final String CONF_FIRST_EVENT = "first_event";
+    static final String CONF_LAST_EVENT = "last_event";
+    static final String CONF_PARTITION = "partition";
+    static final String CONF_PARTITIONS = "partitions";
+
+    private final int first;
+    private final int last;
+
+    private EventRange(int first, int last) {
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Gets the range of events configured for the reader.
+     *
+     * @param opts the reader configuration
+     * @param eventCount the number of events in the input file
+     * @return the range of events to be read
+     * @throws EventReaderException if the configured range is not valid
+     */
+    static EventRange fromConfig(JSONObject opts, int eventCount) throws EventReaderException {
+        try {
+            if (opts.has(CONF_PARTITIONS)) {
+                int partitions = opts.getInt(CONF_PARTITIONS);
+                int partition = opts.getInt(CONF_PARTITION);
+                if (partitions <= 0 || partition < 0 || partition >= partitions) {
+                    throw new EventReaderException(String.format(
+                            "Invalid partition: %d of %d", partition, partitions));
+                }
+                int first = (int) ((long) eventCount * partition / partitions);
+                int last = (int) ((long) eventCount * (partition + 1) / partitions);
+                return new EventRange(first, last);
+            }
+            int first = opts.optInt(CONF_FIRST_EVENT, 0);
+            int last = Math.min(opts.optInt(CONF_LAST_EVENT, eventCount - 1) + 1, eventCount);
+            if (first < 0 || first > last) {
+                throw new EventReaderException(String.format(
+                        "Invalid event range: first = %d, last = %d", first, last - 1));
+            }
+            return new EventRange(first, last);
+        } catch (JSONException e) {
+            throw new EventReaderException(e);
+        }
+    }
+
+    /**
+     * Checks if the range covers all the events of the file.
+     *
+     * @param eventCount the number of events in the input file
+     * @return true if all events will be read
+     */
+    boolean isWholeFile(int eventCount) {
+        return first == 0 && last == eventCount;
+    }
+
+    /**
+     * Returns the number of events in the range.
+     *
+     * @return the size of the range
+     */
+    int size() {
+        return last - first;
+    }
+
+    /**
+     * Converts the number of an event in the range to its number in the file.
+     *
+     * @param eventNumber the number of the event in the range
+     * @return the number of the event in the file
+     */
+    int fileEvent(int eventNumber) {
+        return first + eventNumber;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%d, %d)", first, last);
+    }
+}
@@ -0,0 +1,84 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.function.Predicate;
+
+import org.jlab.clara.std.services.EventReaderException;
+
+/**
+ * The events of the input file that are served by a reader.
+ * <p>
+ * The selection is the configured {@link EventRange range} of the file,
+ * optionally reduced to the events accepted by a filter.
+ * The filter is applied lazily, when each event is read, using
+ * {@link EventFile#readEvent(int, Predicate)}, so the rejected events are
+ * never sent to other services, and the files that can check an event
+ * without reading it never read the rejected events.
+ * <p>
+ * Since the number of accepted events is not known until the whole range
+ * is read, the readers serve a filtered selection in bundles: each request
+ * covers a fixed batch of events of the range, and returns only the
+ * accepted events of the batch (maybe none).
+ *
+ * @param <T> the type of the events
+ */
+final class EventSelection<T> {
+
+    private final EventRange range;
+    private final Predicate<? super T> filter;
+
+    /**
+     * Selects the events of the range accepted by the filter.
+     *
+     * @param range the range of events to be read
+     * @param filter the filter, or null to select all the events of the range
+     */
+    EventSelection(EventRange range, Predicate<? super T> filter) {
+        this.range = range;
+        this.filter = filter;
+    }
+
+    /**
+     * Checks if the events are filtered.
+     *
+     * @return true if some events of the range may be rejected
+     */
+    boolean isFiltered() {
+        return filter != null;
+    }
+
+    /**
+     * Returns the number of events of the range,
+     * including those that may be rejected by the filter.
+     *
+     * @return the size of the range
+     */
+    int size() {
+        return range.size();
+    }
+
+    /**
+     * Converts the number of an event of the range to its number in the file.
+     *
+     * @param eventNumber the number of the event in the range
+     * @return the number of the event in the file
+     */
+    int fileEvent(int eventNumber) {
+        return range.fileEvent(eventNumber);
+    }
+
+    /**
+     * Reads the given event of the range if it is accepted by the filter.
+     *
+     * @param file the input file
+     * @param eventNumber the number of the event in the range
+     * @return the event, or null if it was rejected
+     * @throws EventReaderException if the event could not be read
+     */
+    T readEvent(EventFile<T> file, int eventNumber) throws EventReaderException {
+        int fileEvent = range.fileEvent(eventNumber);
+        if (filter == null) {
+            return file.readEvent(fileEvent);
+        }
+        return file.readEvent(fileEvent, filter);
+    }
+}
@@ -0,0 +1,95 @@
+package org.jlab.clas.std.services.convertors;
+
+import org.jlab.clara.engine.EngineData;
+
+/**
+ * Passes the sequence number of an event between a service request
+ * and the event methods called by that request.
+ * <p>
+ * The sequence number travels with the event as the communication ID of the
+ * CLARA message, which is kept by the services of the chain. Readers
+ * configured with {@value #CONF_ORDERED} stamp each event with its number,
+ * marked with the {@link #MARKER} bit, and writers configured with
+ * {@value #CONF_ORDERED} use it to restore the input order
+ * (see {@link ReorderBuffer}). A communication ID without the marker was
+ * not set by an ordered reader, and the event has no sequence number.
+ */
+final class EventSequence {
+
+    static final String CONF_ORDERED = "ordered";
+
+    /**
+     * The bit of the communication ID that marks a sequence number.
+     */
+    static final long MARKER = 1L << 62;
+
+    private final ThreadLocal<Long> current = new ThreadLocal<>();
+
+    /**
+     * Sets the sequence number of the event handled by the current thread.
+     *
+     * @param sequence the sequence number
+     */
+    void set(long sequence) {
+        current.set(sequence);
+    }
+
+    /**
+     * Sets the sequence number of the event handled by the current thread
+     * from the communication ID of the received message.
+     *
+     * @param communicationId the communication ID of the request
+     */
+    void setFrom(long communicationId) {
+        current.set(fromCommunicationId(communicationId));
+    }
+
+    /**
+     * Gets the sequence number stamped by an ordered reader
+     * in a communication ID.
+     *
+     * @param communicationId the communication ID of a message
+     * @return the sequence number, or -1 if the ID has no sequence number
+     */
+    static long fromCommunicationId(long communicationId) {
+        if (communicationId < 0 || (communicationId & MARKER) == 0) {
+            return -1;
+        }
+        return communicationId & ~MARKER;
+    }
+
+    /**
+     * Gets the sequence number of the event handled by the current thread.
+     *
+     * @return the sequence number, or -1 if it is not known
+     */
+    long get() {
+        Long sequence = current.get();
+        return sequence != null ? sequence : -1;
+    }
+
+    /**
+     * Forgets the sequence number of the current thread.
+     */
+    void clear() {
+        current.remove();
+    }
+
+    /**
+     * Stamps the output of a request with the sequence number of the event
+     * read by the current thread, if any.
+     *
+     * @param output the output of the request
+     * @return the same output
+     */
+    EngineData stamp(EngineData output) {
+        Long sequence = current.get();
+        if (sequence != null) {
+            current.remove();
+            if (output != null) {
+                output.setCommunicationId(MARKER | sequence);
+            }
+        }
+        return output;
+    }
+}
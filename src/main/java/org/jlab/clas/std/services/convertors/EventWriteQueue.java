@@ -0,0 +1,145 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import org.jlab.clara.std.services.EventWriterException;
+
+/**
+ * Writes events to the output on a dedicated I/O thread.
+ * <p>
+ * The events are passed through a bounded queue, so the caller only blocks
+ * when the I/O thread is behind by more than the queue capacity.
+ * The events are written in the same order they were queued.
+ * <p>
+ * If a write fails, the error is reported on the next call to
+ * {@link #writeEvent} or {@link #close}, and the remaining events are discarded.
+ * <p>
+ * When the metrics are enabled, the time each event waits in the queue and
+ * the time to write it are recorded by the I/O thread.
+ *
+ * @param <T> the type of the events
+ */
+final class EventWriteQueue<T> implements EventOutput<T> {
+
+    private static final Object END = new Object();
+
+    private final EventOutput<T> output;
+    private final BlockingQueue<Object> queue;
+    private final Thread thread;
+    private final ServiceMetrics metrics;
+
+    private volatile Exception failure;
+
+    private static final class Queued {
+
+        private final Object event;
+        private final long time;
+
+        Queued(Object event, long time) {
+            this.event = event;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Creates a new queue and starts the I/O thread.
+     *
+     * @param name the name used for the I/O thread
+     * @param output the destination of the events
+     * @param capacity the maximum number of queued events
+     * @param metrics the metrics of the service, or null
+     */
+    EventWriteQueue(String name, EventOutput<T> output, int capacity, ServiceMetrics metrics) {
+        this.output = output;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.metrics = metrics != null && metrics.isEnabled() ? metrics : null;
+        this.thread = new Thread(this::run, name + "-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues the event to be written.
+     * Blocks while the queue is full.
+     *
+     * @param event the event to be written
+     * @throws EventWriterException if a previous event could not be written
+     */
+    @Override
+    public void writeEvent(T event) throws EventWriterException {
+        checkFailure();
+        try {
+            if (metrics != null) {
+                queue.put(new Queued(event, System.nanoTime()));
+            } else {
+                queue.put(event);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventWriterException(e);
+        }
+    }
+
+    /**
+     * Waits until all queued events are written, stops the I/O thread
+     * and closes the output.
+     *
+     * @throws EventWriterException if an event could not be written
+     */
+    @Override
+    public void close() throws EventWriterException {
+        try {
+            queue.put(END);
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EventWriterException(e);
+        }
+        output.close();
+        checkFailure();
+    }
+
+    private void checkFailure() throws EventWriterException {
+        Exception e = failure;
+        if (e != null) {
+            if (e instanceof EventWriterException) {
+                throw (EventWriterException) e;
+            }
+            throw new EventWriterException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void run() {
+        try {
+            while (true) {
+                Object event = queue.take();
+                if (event == END) {
+                    break;
+                }
+                long start = 0;
+                long bytes = 0;
+                if (metrics != null) {
+                    Queued queued = (Queued) event;
+                    start = metrics.start();
+                    metrics.recordTime(ServiceMetrics.QUEUE_WAIT, start - queued.time);
+                    event = queued.event;
+                    bytes = ServiceMetrics.byteCount(event);
+                }
+                if (failure == null) {
+                    try {
+                        output.writeEvent((T) event);
+                        if (metrics != null) {
+                            metrics.record(ServiceMetrics.FILE_WRITE, start, 1, bytes);
+                        }
+                    } catch (Exception e) {
+                        failure = e;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            failure = e;
+        }
+    }
+}
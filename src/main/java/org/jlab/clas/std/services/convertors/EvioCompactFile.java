@@ -0,0 +1,115 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.function.Predicate;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.jlab.coda.jevio.EvioCompactReader;
+import org.jlab.coda.jevio.EvioException;
+import org.jlab.coda.jevio.EvioNode;
+
+/**
+ * An EVIO file read with {@link EvioCompactReader}.
+ * The whole file is scanned when it is opened.
+ */
+final class EvioCompactFile implements EventFile<ByteBuffer> {
+
+    private final Path file;
+    private final EvioCompactReader reader;
+    private final ByteBufferPool pool;
+
+    /**
+     * Opens the given EVIO file.
+     *
+     * @param file the input file
+     * @param pool the pool for the event buffers,
+     *             or null to allocate a new buffer for each event
+     * @throws EvioException if the file is not valid
+     * @throws IOException if the file could not be read
+     */
+    EvioCompactFile(Path file, ByteBufferPool pool) throws EvioException, IOException {
+        this.file = file;
+        this.reader = new EvioCompactReader(file.toFile());
+        this.pool = pool;
+    }
+
+    @Override
+    public int getEventCount() {
+        return reader.getEventCount();
+    }
+
+    @Override
+    public ByteOrder getByteOrder() {
+        return reader.getFileByteOrder();
+    }
+
+    @Override
+    public ByteBuffer readEvent(int eventNumber) throws EventReaderException {
+        try {
+            if (pool == null) {
+                return reader.getEventBuffer(eventNumber + 1, true);
+            }
+            ByteBuffer event = reader.getEventBuffer(eventNumber + 1, false);
+            ByteBuffer buffer = pool.acquire(event.remaining());
+            buffer.put(event.duplicate());
+            buffer.flip();
+            return buffer.order(event.order());
+        } catch (EvioException e) {
+            throw new EventReaderException(e);
+        }
+    }
+
+    @Override
+    public ByteBuffer readEvent(int eventNumber, Predicate<? super ByteBuffer> filter)
+            throws EventReaderException {
+        if (!filter.test(peekEvent(eventNumber))) {
+            return null;
+        }
+        return readEvent(eventNumber);
+    }
+
+    @Override
+    public ByteBuffer peekEvent(int eventNumber) throws EventReaderException {
+        try {
+            return reader.getEventBuffer(eventNumber + 1, false);
+        } catch (EvioException e) {
+            throw new EventReaderException(e);
+        }
+    }
+
+    /**
+     * Creates an index with the position of the scanned events in the file.
+     *
+     * @return the index of the file
+     * @throws IOException if the file attributes could not be read
+     */
+    EvioEventIndex createIndex() throws IOException {
+        int eventCount = reader.getEventCount();
+        long[] offsets = new long[eventCount];
+        int[] lengths = new int[eventCount];
+        for (int i = 0; i < eventCount; i++) {
+            EvioNode node = reader.getScannedEvent(i + 1);
+            offsets[i] = node.getPosition();
+            lengths[i] = node.getTotalBytes();
+        }
+        return new EvioEventIndex(file, getByteOrder(), offsets, lengths);
+    }
+
+    /**
+     * Checks if the position of the scanned events are offsets in the file.
+     * That is only the case for uncompressed files in EVIO 4 format.
+     *
+     * @return true if an index of the file can be created
+     */
+    boolean isIndexable() {
+        return reader.getEvioVersion() < 6;
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+}
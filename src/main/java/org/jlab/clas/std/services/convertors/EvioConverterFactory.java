@@ -0,0 +1,72 @@
+package org.jlab.clas.std.services.convertors;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.json.JSONObject;
+
+/**
+ * Creates the {@link EvioEventConverter converters} of a reader,
+ * one for each conversion thread.
+ */
+final class EvioConverterFactory {
+
+    private final Class<? extends EvioEventConverter> converterClass;
+    private final SchemaFactory schemas;
+    private final boolean filter;
+    private final JSONObject opts;
+
+    private final ThreadLocal<EvioEventConverter> converters = new ThreadLocal<>();
+
+    /**
+     * Loads the given converter class.
+     * A converter is created and initialized to check the class,
+     * so a wrong configuration fails here, instead of on the first event.
+     * That converter is discarded, and the conversion threads create their own.
+     *
+     * @param className the name of a class that implements {@link EvioEventConverter}
+     * @param schemas the definitions of the banks of the HIPO events
+     * @param filter if only the banks defined in the schemas must be written
+     * @param opts the configuration of the reader
+     * @throws EventReaderException if the converter could not be created
+     */
+    EvioConverterFactory(String className, SchemaFactory schemas, boolean filter,
+                         JSONObject opts) throws EventReaderException {
+        try {
+            this.converterClass = Class.forName(className).asSubclass(EvioEventConverter.class);
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new EventReaderException("invalid EVIO to HIPO converter: " + className, e);
+        }
+        this.schemas = schemas;
+        this.filter = filter;
+        this.opts = opts;
+        create();
+    }
+
+    /**
+     * Gets the converter of the calling thread,
+     * creating it on the first call of the thread.
+     *
+     * @return the converter of the thread
+     * @throws EventReaderException if the converter could not be created
+     */
+    EvioEventConverter get() throws EventReaderException {
+        EvioEventConverter converter = converters.get();
+        if (converter == null) {
+            converter = create();
+            converters.set(converter);
+        }
+        return converter;
+    }
+
+    private EvioEventConverter create() throws EventReaderException {
+        EvioEventConverter converter;
+        try {
+            converter = converterClass.getConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new EventReaderException("could not create EVIO to HIPO converter: "
+                                           + converterClass.getName(), e);
+        }
+        converter.init(schemas, filter, opts);
+        return converter;
+    }
+}
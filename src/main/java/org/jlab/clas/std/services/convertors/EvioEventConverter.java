@@ -0,0 +1,40 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteBuffer;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.json.JSONObject;
+
+/**
+ * Decodes EVIO events into HIPO events, for {@link EvioToHipoReader}.
+ * <p>
+ * The implementation is selected by class name in the configuration of the
+ * reader, and it must have a public constructor with no arguments.
+ * A new instance is created for each conversion thread,
+ * so implementations do not need to be thread-safe.
+ */
+public interface EvioEventConverter {
+
+    /**
+     * Prepares the converter before it converts the first event.
+     *
+     * @param schemas the definitions of the banks of the HIPO events,
+     *                shared by all converters (they must not be modified)
+     * @param filter if only the banks defined in the schemas must be written
+     * @param opts the configuration of the reader
+     * @throws EventReaderException if the converter could not be initialized
+     */
+    void init(SchemaFactory schemas, boolean filter, JSONObject opts)
+            throws EventReaderException;
+
+    /**
+     * Converts an EVIO event.
+     *
+     * @param event the EVIO event
+     * @return the HIPO event
+     * @throws EventReaderException if the event could not be converted
+     */
+    HipoEvent convert(ByteBuffer event) throws EventReaderException;
+}
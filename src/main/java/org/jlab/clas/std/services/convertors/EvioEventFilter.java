@@ -0,0 +1,86 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Accepts the EVIO events whose top-level bank has one of the given
+ * tags and nums.
+ * Only the bank header is checked, so the event is not deserialized.
+ */
+final class EvioEventFilter implements Predicate<ByteBuffer> {
+
+    static final String CONF_FILTER_TAG = "filter_tag";
+    static final String CONF_FILTER_NUM = "filter_num";
+
+    private final int[] tags;
+    private final int[] nums;
+
+    private EvioEventFilter(int[] tags, int[] nums) {
+        this.tags = tags;
+        this.nums = nums;
+    }
+
+    /**
+     * Creates the filter configured for the reader.
+     * Each option can be a single value or a list of values.
+     *
+     * @param opts the reader configuration
+     * @return the filter, or null if no filter is configured
+     */
+    static EvioEventFilter fromConfig(JSONObject opts) {
+        int[] tags = getValues(opts, CONF_FILTER_TAG);
+        int[] nums = getValues(opts, CONF_FILTER_NUM);
+        if (tags == null && nums == null) {
+            return null;
+        }
+        return new EvioEventFilter(tags, nums);
+    }
+
+    private static int[] getValues(JSONObject opts, String key) {
+        if (!opts.has(key)) {
+            return null;
+        }
+        JSONArray array = opts.optJSONArray(key);
+        if (array == null) {
+            return new int[] {opts.getInt(key)};
+        }
+        int[] values = new int[array.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = array.getInt(i);
+        }
+        return values;
+    }
+
+    @Override
+    public boolean test(ByteBuffer event) {
+        // second word of the bank header: tag (16 bits), pad, type, num (8 bits)
+        int word = event.getInt(event.position() + 4);
+        int tag = word >>> 16;
+        int num = word & 0xff;
+        return contains(tags, tag) && contains(nums, num);
+    }
+
+    private static boolean contains(int[] values, int value) {
+        if (values == null) {
+            return true;
+        }
+        for (int v : values) {
+            if (v == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("tag = %s, num = %s",
+                             tags != null ? Arrays.toString(tags) : "any",
+                             nums != null ? Arrays.toString(nums) : "any");
+    }
+}
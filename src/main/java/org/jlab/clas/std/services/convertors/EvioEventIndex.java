@@ -0,0 +1,149 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * The position and length of each event in an EVIO file.
+ * <p>
+ * The index is saved into a sidecar file, so the input file does not have
+ * to be scanned again when it is opened. The size and modification time
+ * of the input file are saved with the index, and the index is ignored
+ * when the file has been changed.
+ */
+final class EvioEventIndex {
+
+    private static final int MAGIC = 0x45564958; // "EVIX"
+    private static final int VERSION = 1;
+
+    private static final String SUFFIX = ".idx";
+
+    private final long fileSize;
+    private final long fileTime;
+    private final ByteOrder byteOrder;
+    private final long[] offsets;
+    private final int[] lengths;
+
+    EvioEventIndex(Path file, ByteOrder byteOrder, long[] offsets, int[] lengths)
+            throws IOException {
+        this(Files.size(file), Files.getLastModifiedTime(file).toMillis(),
+             byteOrder, offsets, lengths);
+    }
+
+    private EvioEventIndex(long fileSize, long fileTime,
+                           ByteOrder byteOrder, long[] offsets, int[] lengths) {
+        this.fileSize = fileSize;
+        this.fileTime = fileTime;
+        this.byteOrder = byteOrder;
+        this.offsets = offsets;
+        this.lengths = lengths;
+    }
+
+    /**
+     * Returns the path of the sidecar index for the given input file.
+     *
+     * @param file the input file
+     * @param indexDir the directory for the index, or null to use the same
+     *                 directory of the input file
+     * @return the path of the index file
+     */
+    static Path indexPath(Path file, String indexDir) {
+        String name = file.getFileName() + SUFFIX;
+        if (indexDir != null) {
+            return file.getFileSystem().getPath(indexDir, name);
+        }
+        return file.resolveSibling(name);
+    }
+
+    /**
+     * Loads the index of the given input file.
+     *
+     * @param indexFile the path of the index
+     * @param file the indexed input file
+     * @return the index, or null if it does not exist or it is not valid
+     *         for the current version of the input file
+     * @throws IOException if the index could not be read
+     */
+    static EvioEventIndex load(Path indexFile, Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return null;
+            }
+            long fileSize = in.readLong();
+            long fileTime = in.readLong();
+            if (fileSize != Files.size(file)
+                    || fileTime != Files.getLastModifiedTime(file).toMillis()) {
+                return null;
+            }
+            ByteOrder byteOrder = in.readBoolean() ? ByteOrder.BIG_ENDIAN
+                                                   : ByteOrder.LITTLE_ENDIAN;
+            int eventCount = in.readInt();
+            long[] offsets = new long[eventCount];
+            int[] lengths = new int[eventCount];
+            for (int i = 0; i < eventCount; i++) {
+                offsets[i] = in.readLong();
+                lengths[i] = in.readInt();
+            }
+            return new EvioEventIndex(fileSize, fileTime, byteOrder, offsets, lengths);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Saves the index into the given file.
+     * The index is written to a temporary file first, and then moved to the
+     * final path, so other readers never see a partial index.
+     *
+     * @param indexFile the path of the index
+     * @throws IOException if the index could not be saved
+     */
+    void save(Path indexFile) throws IOException {
+        Path dir = indexFile.toAbsolutePath().getParent();
+        Path tmpFile = Files.createTempFile(dir, indexFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(fileSize);
+                out.writeLong(fileTime);
+                out.writeBoolean(byteOrder == ByteOrder.BIG_ENDIAN);
+                out.writeInt(offsets.length);
+                for (int i = 0; i < offsets.length; i++) {
+                    out.writeLong(offsets[i]);
+                    out.writeInt(lengths[i]);
+                }
+            }
+            Files.move(tmpFile, indexFile,
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmpFile);
+        }
+    }
+
+    int getEventCount() {
+        return offsets.length;
+    }
+
+    ByteOrder getByteOrder() {
+        return byteOrder;
+    }
+
+    long getOffset(int eventNumber) {
+        return offsets[eventNumber];
+    }
+
+    int getLength(int eventNumber) {
+        return lengths[eventNumber];
+    }
+}
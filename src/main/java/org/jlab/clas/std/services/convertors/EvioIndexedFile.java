@@ -0,0 +1,112 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.function.Predicate;
+import java.nio.file.StandardOpenOption;
+
+import org.jlab.clara.std.services.EventReaderException;
+
+/**
+ * An EVIO file read using the offsets of an {@link EvioEventIndex}.
+ * The file is not scanned, and each event is read with a single
+ * positional read.
+ */
+final class EvioIndexedFile implements EventFile<ByteBuffer> {
+
+    private static final int HEADER_SIZE = 8;
+
+    private final EvioEventIndex index;
+    private final FileChannel channel;
+    private final ByteBufferPool pool;
+
+    /**
+     * Opens the given EVIO file.
+     *
+     * @param file the input file
+     * @param index the index of the file
+     * @param pool the pool for the event buffers,
+     *             or null to allocate a new buffer for each event
+     * @throws IOException if the file could not be opened
+     */
+    EvioIndexedFile(Path file, EvioEventIndex index, ByteBufferPool pool) throws IOException {
+        this.index = index;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.pool = pool;
+    }
+
+    @Override
+    public int getEventCount() {
+        return index.getEventCount();
+    }
+
+    @Override
+    public ByteOrder getByteOrder() {
+        return index.getByteOrder();
+    }
+
+    @Override
+    public ByteBuffer readEvent(int eventNumber) throws EventReaderException {
+        if (eventNumber < 0 || eventNumber >= index.getEventCount()) {
+            throw new EventReaderException("Invalid event number: " + eventNumber);
+        }
+        int length = index.getLength(eventNumber);
+        ByteBuffer buffer = pool != null ? pool.acquire(length) : ByteBuffer.allocate(length);
+        buffer.order(index.getByteOrder());
+        readFully(buffer, index.getOffset(eventNumber));
+        buffer.flip();
+        return buffer;
+    }
+
+    @Override
+    public ByteBuffer readEvent(int eventNumber, Predicate<? super ByteBuffer> filter)
+            throws EventReaderException {
+        if (!filter.test(peekEvent(eventNumber))) {
+            return null;
+        }
+        return readEvent(eventNumber);
+    }
+
+    /**
+     * Reads only the bank header of the event.
+     */
+    @Override
+    public ByteBuffer peekEvent(int eventNumber) throws EventReaderException {
+        if (eventNumber < 0 || eventNumber >= index.getEventCount()) {
+            throw new EventReaderException("Invalid event number: " + eventNumber);
+        }
+        int length = Math.min(index.getLength(eventNumber), HEADER_SIZE);
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.order(index.getByteOrder());
+        readFully(buffer, index.getOffset(eventNumber));
+        buffer.flip();
+        return buffer;
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws EventReaderException {
+        try {
+            long position = offset;
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, position);
+                if (n < 0) {
+                    throw new EventReaderException("Unexpected end of file");
+                }
+                position += n;
+            }
+        } catch (IOException e) {
+            throw new EventReaderException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not close file: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jlab.clara.std.services.EventWriterException;
+import org.jlab.coda.jevio.EventWriter;
+import org.jlab.coda.jevio.EvioException;
+
+/**
+ * An EVIO file written with {@link EventWriter}.
+ * <p>
+ * The writer is created with the sizes given by an {@link EvioRecordSizer}.
+ * When the sizes are adaptive and not known yet, the first events are kept
+ * in memory until there are enough samples, and the file is created after.
+ */
+final class EvioOutputFile implements EventOutput<ByteBuffer> {
+
+    /**
+     * Creates the writer of the file.
+     */
+    @FunctionalInterface
+    interface WriterFactory {
+        EventWriter create(EvioRecordSizer sizer) throws EvioException;
+    }
+
+    private final Path file;
+    private final WriterFactory factory;
+    private final EvioRecordSizer sizer;
+    private final boolean sync;
+    private final boolean recycle;
+
+    private final List<ByteBuffer> pending = new ArrayList<>();
+    private EventWriter writer;
+
+    /**
+     * Opens an EVIO file.
+     *
+     * @param file the path of the file
+     * @param factory creates the writer of the file
+     * @param sizer the record sizes of the writer
+     * @param sync if the file must be synced to disk when it is closed
+     * @param recycle if the event buffers must be returned to the
+     *                {@link ByteBufferPool} once they are written
+     * @throws EventWriterException if the file could not be created
+     */
+    EvioOutputFile(Path file, WriterFactory factory, EvioRecordSizer sizer,
+                   boolean sync, boolean recycle) throws EventWriterException {
+        this.file = file;
+        this.factory = factory;
+        this.sizer = sizer;
+        this.sync = sync;
+        this.recycle = recycle;
+        if (sizer.isReady()) {
+            openWriter();
+        }
+    }
+
+    private void openWriter() throws EventWriterException {
+        try {
+            writer = factory.create(sizer);
+        } catch (EvioException e) {
+            throw new EventWriterException(e);
+        }
+        for (ByteBuffer event : pending) {
+            write(event);
+        }
+        pending.clear();
+    }
+
+    @Override
+    public void writeEvent(ByteBuffer event) throws EventWriterException {
+        sizer.addSample(event.remaining());
+        if (writer == null) {
+            pending.add(event);
+            if (sizer.isReady()) {
+                openWriter();
+            }
+            return;
+        }
+        write(event);
+    }
+
+    private void write(ByteBuffer event) throws EventWriterException {
+        try {
+            // the writer copies the event into its own record buffer
+            writer.writeEvent(event);
+        } catch (EvioException | IOException e) {
+            throw new EventWriterException(e);
+        }
+        if (recycle) {
+            ByteBufferPool.recycle(event);
+        }
+    }
+
+    @Override
+    public void close() throws EventWriterException {
+        if (writer == null) {
+            openWriter();
+        }
+        writer.close();
+        if (sync) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            } catch (IOException e) {
+                throw new EventWriterException("Could not sync " + file, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONObject;
+
+/**
+ * Chooses the record and buffer sizes of the EVIO output files.
+ * <p>
+ * The sizes are fixed by default (configured or the previous hard-coded
+ * values). In adaptive mode the sizes are computed from the events written so
+ * far by all the files of the writer: a record holds about
+ * {@link #TARGET_RECORD_EVENTS} events of the average size, and at least two
+ * of the largest events, between {@link #MIN_RECORD_SIZE} and
+ * {@link #MAX_RECORD_SIZE} bytes. Larger records compress better, and small
+ * events do not fill a large buffer for nothing.
+ */
+final class EvioRecordSizer {
+
+    static final String CONF_RECORD_SIZE = "record_size";
+    static final String CONF_RECORD_EVENTS = "record_events";
+    static final String CONF_BUFFER_SIZE = "buffer_size";
+    static final String CONF_ADAPTIVE = "adaptive_records";
+
+    static final int DEFAULT_RECORD_SIZE = 1_000_000;
+    static final int DEFAULT_RECORD_EVENTS = 10_000;
+    static final int DEFAULT_BUFFER_SIZE = 20_000_000;
+
+    static final int SAMPLE_EVENTS = 100;
+    static final int TARGET_RECORD_EVENTS = 1_000;
+    static final int MIN_RECORD_SIZE = 1 << 20;
+    static final int MAX_RECORD_SIZE = 16 << 20;
+
+    private final int recordSize;
+    private final int recordEvents;
+    private final int bufferSize;
+    private final boolean adaptive;
+
+    private final LongAdder sampledBytes = new LongAdder();
+    private final LongAdder sampledEvents = new LongAdder();
+    private final AtomicInteger largestEvent = new AtomicInteger();
+
+    private EvioRecordSizer(int recordSize, int recordEvents, int bufferSize,
+                            boolean adaptive) {
+        this.recordSize = recordSize;
+        this.recordEvents = recordEvents;
+        this.bufferSize = bufferSize;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Creates the sizer for the given writer configuration.
+     *
+     * @param opts the writer configuration
+     * @return the sizer
+     */
+    static EvioRecordSizer fromConfig(JSONObject opts) {
+        int recordSize = opts.optInt(CONF_RECORD_SIZE, DEFAULT_RECORD_SIZE);
+        int recordEvents = opts.optInt(CONF_RECORD_EVENTS, DEFAULT_RECORD_EVENTS);
+        int bufferSize = opts.optInt(CONF_BUFFER_SIZE, DEFAULT_BUFFER_SIZE);
+        if (recordSize <= 0 || recordEvents <= 0 || bufferSize <= 0) {
+            throw new IllegalArgumentException("invalid record sizes");
+        }
+        boolean adaptive = opts.optBoolean(CONF_ADAPTIVE, false);
+        return new EvioRecordSizer(recordSize, recordEvents, bufferSize, adaptive);
+    }
+
+    /**
+     * Checks if the sizes are computed from the written events.
+     *
+     * @return true if the sizes are adaptive
+     */
+    boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * Checks if enough events have been seen to compute the sizes.
+     *
+     * @return true if the sizes can be used
+     */
+    boolean isReady() {
+        return !adaptive || sampledEvents.sum() >= SAMPLE_EVENTS;
+    }
+
+    /**
+     * Records the size of a written event.
+     *
+     * @param size the size of the event in bytes
+     */
+    void addSample(int size) {
+        if (adaptive) {
+            sampledBytes.add(size);
+            sampledEvents.increment();
+            largestEvent.accumulateAndGet(size, Math::max);
+        }
+    }
+
+    /**
+     * Returns the maximum size of a record.
+     *
+     * @return the record size in bytes
+     */
+    int recordSize() {
+        long events = sampledEvents.sum();
+        if (!adaptive || events == 0) {
+            return recordSize;
+        }
+        long average = sampledBytes.sum() / events;
+        long size = Math.max(average * TARGET_RECORD_EVENTS, 2L * largestEvent.get());
+        return (int) Math.min(Math.max(size, MIN_RECORD_SIZE), MAX_RECORD_SIZE);
+    }
+
+    /**
+     * Returns the maximum number of events in a record.
+     *
+     * @return the number of events
+     */
+    int recordEvents() {
+        return recordEvents;
+    }
+
+    /**
+     * Returns the size of the output buffer.
+     * It is always large enough for two records.
+     *
+     * @return the buffer size in bytes
+     */
+    int bufferSize() {
+        if (!adaptive) {
+            return bufferSize;
+        }
+        return Math.max(bufferSize, 2 * recordSize());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("record size = %d, record events = %d, buffer size = %d",
+                             recordSize(), recordEvents(), bufferSize());
+    }
+}
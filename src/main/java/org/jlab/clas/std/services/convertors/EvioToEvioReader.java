@@ -1,59 +1,272 @@
 package org.jlab.clas.std.services.convertors;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import org.jlab.clara.engine.EngineData;
 import org.jlab.clara.engine.EngineDataType;
 import org.jlab.clara.std.services.AbstractEventReaderService;
 import org.jlab.clara.std.services.EventReaderException;
 import org.jlab.clas.std.services.util.Clas12Types;
-import org.jlab.coda.jevio.EvioCompactReader;
 import org.jlab.coda.jevio.EvioException;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
  * Converter service that converts EvIO persistent data to EvIO transient data
  * (i.e. Reads EvIO events from an input file)
  */
-public class EvioToEvioReader extends AbstractEventReaderService<EvioCompactReader> {
+public class EvioToEvioReader extends AbstractEventReaderService<EventFile<ByteBuffer>> {
+
+    private static final String CONF_PREFETCH = "prefetch";
+    private static final String CONF_BATCH = "batch";
+    private static final String CONF_INDEX = "index";
+    private static final String CONF_INDEX_DIR = "index_dir";
+    private static final String CONF_POOL_BUFFERS = "pool_buffers";
+    private static final String CONF_DIRECT_BUFFERS = "direct_buffers";
+
+    private final EventSequence sequence = new EventSequence();
+    private final ServiceMetrics metrics = new ServiceMetrics();
+
+    private EventSelection<ByteBuffer> selection;
+    private volatile boolean ordered;
+    private EventPrefetcher<ByteBuffer> prefetcher;
+    private volatile int batchSize = 1;
+    private volatile boolean bundled;
 
     @Override
-    protected EvioCompactReader createReader(Path file, JSONObject opts)
+    protected EventFile<ByteBuffer> createReader(Path file, JSONObject opts)
+            throws EventReaderException {
+        metrics.configure(getName(), opts);
+        long start = metrics.start();
+        List<Path> files = ChainedEventFile.inputFiles(file, opts);
+        EventFile<ByteBuffer> reader;
+        if (files.size() == 1) {
+            reader = openFile(files.get(0), opts);
+        } else {
+            System.out.printf("%s service: chained input = %d files%n", getName(), files.size());
+            reader = ChainedEventFile.open(getName(), files, chainedOpener(opts));
+        }
+        selection = createSelection(reader, opts);
+        ordered = opts.optBoolean(EventSequence.CONF_ORDERED, false);
+        if (ordered) {
+            System.out.printf("%s service: ordered output = %b%n", getName(), ordered);
+        }
+        if (opts.optBoolean(CONF_POOL_BUFFERS, false)) {
+            System.out.printf("%s service: pooled buffers = %s%n", getName(),
+                              opts.optBoolean(CONF_DIRECT_BUFFERS, false) ? "direct" : "heap");
+        }
+        int depth = opts.optInt(CONF_PREFETCH, 0);
+        if (depth > 0) {
+            System.out.printf("%s service: prefetch depth = %d%n", getName(), depth);
+            prefetcher = new EventPrefetcher<>(getName(),
+                                               this::readSelectedEvent,
+                                               selection.size(),
+                                               depth);
+        }
+        batchSize = Math.max(opts.optInt(CONF_BATCH, 1), 1);
+        if (batchSize > 1) {
+            System.out.printf("%s service: batch size = %d%n", getName(), batchSize);
+        }
+        bundled = batchSize > 1 || selection.isFiltered();
+        metrics.record(ServiceMetrics.OPEN, start, null);
+        return reader;
+    }
+
+    private EventSelection<ByteBuffer> createSelection(EventFile<ByteBuffer> reader,
+                                                       JSONObject opts)
+            throws EventReaderException {
+        try {
+            EventRange range = EventRange.fromConfig(opts, reader.getEventCount());
+            if (!range.isWholeFile(reader.getEventCount())) {
+                System.out.printf("%s service: event range = %s%n", getName(), range);
+            }
+            EvioEventFilter filter = EvioEventFilter.fromConfig(opts);
+            if (filter != null) {
+                System.out.printf("%s service: filter = %s%n", getName(), filter);
+            }
+            return new EventSelection<>(range, filter);
+        } catch (EventReaderException | JSONException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private EventFile<ByteBuffer> openFile(Path file, JSONObject opts)
             throws EventReaderException {
         try {
-            return new EvioCompactReader(file.toFile());
+            return openEvioFile(file, opts);
         } catch (EvioException | IOException e) {
             throw new EventReaderException(e);
         }
     }
 
+    private ChainedEventFile.Opener<ByteBuffer> chainedOpener(JSONObject opts) {
+        return new ChainedEventFile.Opener<ByteBuffer>() {
+            @Override
+            public EventFile<ByteBuffer> open(Path file) throws EventReaderException {
+                return openFile(file, opts);
+            }
+
+            @Override
+            public int countEvents(Path file) throws EventReaderException {
+                return countFileEvents(file, opts);
+            }
+        };
+    }
+
+    private int countFileEvents(Path file, JSONObject opts) throws EventReaderException {
+        if (opts.optBoolean(CONF_INDEX, false)) {
+            Path indexFile = EvioEventIndex.indexPath(file, opts.optString(CONF_INDEX_DIR, null));
+            try {
+                EvioEventIndex index = EvioEventIndex.load(indexFile, file);
+                if (index != null) {
+                    return index.getEventCount();
+                }
+            } catch (IOException e) {
+                System.err.printf("%s service: could not read index %s: %s%n",
+                                  getName(), indexFile, e.getMessage());
+            }
+        }
+        // scans the file, and creates the index if requested
+        EventFile<ByteBuffer> reader = openFile(file, opts);
+        try {
+            return reader.getEventCount();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private EventFile<ByteBuffer> openEvioFile(Path file, JSONObject opts)
+            throws EvioException, IOException {
+        ByteBufferPool pool = getBufferPool(opts);
+        if (!opts.optBoolean(CONF_INDEX, false)) {
+            return new EvioCompactFile(file, pool);
+        }
+
+        Path indexFile = EvioEventIndex.indexPath(file, opts.optString(CONF_INDEX_DIR, null));
+        try {
+            EvioEventIndex index = EvioEventIndex.load(indexFile, file);
+            if (index != null) {
+                System.out.printf("%s service: using index %s%n", getName(), indexFile);
+                return new EvioIndexedFile(file, index, pool);
+            }
+        } catch (IOException e) {
+            System.err.printf("%s service: could not read index %s: %s%n",
+                              getName(), indexFile, e.getMessage());
+        }
+
+        EvioCompactFile reader = new EvioCompactFile(file, pool);
+        if (reader.isIndexable()) {
+            try {
+                reader.createIndex().save(indexFile);
+                System.out.printf("%s service: created index %s%n", getName(), indexFile);
+            } catch (IOException e) {
+                System.err.printf("%s service: could not create index %s: %s%n",
+                                  getName(), indexFile, e.getMessage());
+            }
+        } else {
+            System.out.printf("%s service: index not supported for %s%n", getName(), file);
+        }
+        return reader;
+    }
+
+    private ByteBufferPool getBufferPool(JSONObject opts) {
+        if (opts.optBoolean(CONF_POOL_BUFFERS, false)) {
+            return ByteBufferPool.get(opts.optBoolean(CONF_DIRECT_BUFFERS, false));
+        }
+        return null;
+    }
+
     @Override
     protected void closeReader() {
+        long start = metrics.start();
+        if (prefetcher != null) {
+            prefetcher.close();
+            prefetcher = null;
+        }
         reader.close();
+        metrics.record(ServiceMetrics.CLOSE, start, null);
+        metrics.print(getName());
     }
 
     @Override
     public int readEventCount() throws EventReaderException {
-        return reader.getEventCount();
+        int eventCount = selection.size();
+        if (bundled) {
+            return (eventCount + batchSize - 1) / batchSize;
+        }
+        return eventCount;
     }
 
     @Override
     public ByteOrder readByteOrder() throws EventReaderException {
-        return reader.getFileByteOrder();
+        return reader.getByteOrder();
+    }
+
+    @Override
+    public EngineData execute(EngineData input) {
+        if (ServiceMetrics.isRequest(input)) {
+            return metrics.report();
+        }
+        return sequence.stamp(super.execute(input));
     }
 
     @Override
     public Object readEvent(int eventNumber) throws EventReaderException {
-        try {
-            return reader.getEventBuffer(++eventNumber, true);
-        } catch (EvioException e) {
-            throw new EventReaderException(e);
+        if (ordered) {
+            sequence.set(eventNumber);
         }
+        long start = metrics.start();
+        Object event;
+        if (bundled) {
+            int first = eventNumber * batchSize;
+            int last = Math.min(first + batchSize, selection.size());
+            List<ByteBuffer> events = new ArrayList<>(batchSize);
+            for (int i = first; i < last; i++) {
+                ByteBuffer selected = readSingleEvent(i);
+                if (selected != null) {
+                    events.add(selected);
+                }
+            }
+            event = events;
+        } else {
+            event = readSingleEvent(eventNumber);
+        }
+        metrics.record(ServiceMetrics.READ_EVENT, start, event);
+        return event;
+    }
+
+    private ByteBuffer readSingleEvent(int eventNumber) throws EventReaderException {
+        if (prefetcher != null) {
+            return prefetcher.readEvent(eventNumber);
+        }
+        return readSelectedEvent(eventNumber);
+    }
+
+    private ByteBuffer readSelectedEvent(int eventNumber) throws EventReaderException {
+        long start = metrics.start();
+        ByteBuffer event = selection.readEvent(reader, eventNumber);
+        metrics.record(ServiceMetrics.FILE_READ, start, event);
+        return event;
     }
 
     @Override
     protected EngineDataType getDataType() {
-        return Clas12Types.EVIO;
+        return bundled ? Clas12Types.EVIO_BUNDLE : Clas12Types.EVIO;
+    }
+
+    @Override
+    public Set<EngineDataType> getOutputDataTypes() {
+        Set<EngineDataType> types = new HashSet<>(super.getOutputDataTypes());
+        types.add(Clas12Types.EVIO);
+        types.add(Clas12Types.EVIO_BUNDLE);
+        return types;
     }
 }
@@ -1,10 +1,14 @@
 package org.jlab.clas.std.services.convertors;
 
-import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import org.jlab.clara.engine.EngineData;
 import org.jlab.clara.engine.EngineDataType;
 import org.jlab.clara.std.services.AbstractEventWriterService;
 import org.jlab.clara.std.services.EventWriterException;
@@ -17,41 +21,139 @@ import org.json.JSONObject;
 /**
  * Converter service that converts EvIO transient data to EvIO persistent data
  * (i.e. writes EvIO events to an output file).
- * Supports evio-4.1 version.
+ * Supports evio-4.1 version, and evio-6 version for compressed output.
  */
-public class EvioToEvioWriter extends AbstractEventWriterService<EventWriter> {
+public class EvioToEvioWriter extends AbstractEventWriterService<EventOutput<ByteBuffer>> {
 
     private static final String CONF_ORDER = "order";
     private static final String CONF_OVERWRITE = "overwrite";
+    private static final String CONF_BATCH = "batch";
+    private static final String CONF_POOL_BUFFERS = "pool_buffers";
+    private static final String CONF_COMPRESSION = "compression";
+    private static final String CONF_COMPRESSION_THREADS = "compression_threads";
+
+    // the compression types of evio-6 records
+    private static final List<String> COMPRESSION_TYPES =
+            Arrays.asList("none", "lz4", "lz4_best", "gzip");
+
+    private static final int MIN_RING_SIZE = 16;
+
+    private final EventSequence sequence = new EventSequence();
+    private final ServiceMetrics metrics = new ServiceMetrics();
+
+    private volatile boolean batch;
+    private volatile ReorderBuffer<Object> reorder;
 
     @Override
-    protected EventWriter createWriter(Path file, JSONObject opts) throws EventWriterException {
+    protected EventOutput<ByteBuffer> createWriter(Path file, JSONObject opts)
+            throws EventWriterException {
+        metrics.configure(getName(), opts);
+        long start = metrics.start();
+        batch = opts.optBoolean(CONF_BATCH, false);
+        if (batch) {
+            System.out.printf("%s service: batch input = %b%n", getName(), batch);
+        }
+        boolean sync = EventOutputs.isQueued(opts);
+        boolean recycle = opts.optBoolean(CONF_POOL_BUFFERS, false);
+        if (recycle) {
+            System.out.printf("%s service: recycle buffers = %b%n", getName(), recycle);
+        }
+        EvioRecordSizer sizer = getRecordSizer(opts);
+        int compression = getCompressionType(opts);
+        int threads = Math.max(opts.optInt(CONF_COMPRESSION_THREADS, 1), 1);
+        if (compression > 0) {
+            System.out.printf("%s service: compression = %s (%d threads)%n", getName(),
+                              COMPRESSION_TYPES.get(compression), threads);
+        }
+        ByteOrder byteOrder;
+        boolean overwrite;
+        try {
+            byteOrder = getByteOrder(opts);
+            overwrite = getOverwriteOption(opts);
+        } catch (JSONException e) {
+            throw new EventWriterException(e);
+        }
+        EventOutput.Opener<ByteBuffer> opener = f -> new EvioOutputFile(
+                f, s -> openFile(f, s, byteOrder, overwrite, compression, threads),
+                sizer, sync, recycle);
+        reorder = ReorderBuffer.fromConfig(getName(), opts, this::writeData,
+                                           getDataType().serializer());
+        EventOutput<ByteBuffer> output = EventOutputs.create(getName(), file, opts, opener,
+                                                             ByteBuffer::remaining, metrics);
+        metrics.record(ServiceMetrics.OPEN, start, null);
+        return output;
+    }
+
+    private EvioRecordSizer getRecordSizer(JSONObject opts) throws EventWriterException {
         try {
-            String baseName = file.toFile().getName();
-            String directory = file.toFile().getParent();
-            String runType = null;
+            EvioRecordSizer sizer = EvioRecordSizer.fromConfig(opts);
+            if (sizer.isAdaptive()) {
+                System.out.printf("%s service: adaptive record sizes%n", getName());
+            } else if (opts.has(EvioRecordSizer.CONF_RECORD_SIZE)
+                    || opts.has(EvioRecordSizer.CONF_RECORD_EVENTS)
+                    || opts.has(EvioRecordSizer.CONF_BUFFER_SIZE)) {
+                System.out.printf("%s service: %s%n", getName(), sizer);
+            }
+            return sizer;
+        } catch (JSONException | IllegalArgumentException e) {
+            throw new EventWriterException(e);
+        }
+    }
 
-            int runNumber = 0;
-            int split = 0;
+    private int getCompressionType(JSONObject opts) throws EventWriterException {
+        String type = opts.optString(CONF_COMPRESSION, "none").toLowerCase();
+        int index = COMPRESSION_TYPES.indexOf(type);
+        if (index < 0) {
+            throw new EventWriterException("invalid compression type: " + type);
+        }
+        return index;
+    }
+
+    private EventWriter openFile(Path file, EvioRecordSizer sizer,
+                                 ByteOrder byteOrder, boolean overwriteOK,
+                                 int compression, int compressionThreads)
+            throws EvioException {
+        String baseName = file.toFile().getName();
+        String directory = file.toFile().getParent();
+        String runType = null;
 
-            int blockSizeMax = 1_000_000;
-            int blockCountMax = 10_000;
-            int bufferSize = 20_000_000;
+        int runNumber = 0;
+        int split = 0;
 
-            ByteOrder byteOrder = getByteOrder(opts);
-            String xmlDictionary = null;
+        int blockSizeMax = sizer.recordSize();
+        int blockCountMax = sizer.recordEvents();
+        int bufferSize = sizer.bufferSize();
+        if (sizer.isAdaptive()) {
+            System.out.printf("%s service: %s: %s%n", getName(), file.getFileName(), sizer);
+        }
 
-            boolean overwriteOK = getOverwriteOption(opts);
-            boolean append = false;
+        String xmlDictionary = null;
+        boolean append = false;
 
+        if (compression == 0) {
             return new EventWriter(baseName, directory, runType,
                                    runNumber, split,
                                    blockSizeMax, blockCountMax, bufferSize,
                                    byteOrder, xmlDictionary, null,
                                    overwriteOK, append);
-        } catch (JSONException | EvioException e) {
-            throw new EventWriterException(e);
         }
+
+        // single stream, no split files
+        int streamId = 0;
+        int splitNumber = 0;
+        int splitIncrement = 1;
+        int streamCount = 1;
+        int ringSize = Math.max(MIN_RING_SIZE,
+                                Integer.highestOneBit(2 * compressionThreads - 1) << 1);
+
+        return new EventWriter(baseName, directory, runType,
+                               runNumber, split,
+                               blockSizeMax, blockCountMax,
+                               byteOrder, xmlDictionary,
+                               overwriteOK, append, null,
+                               streamId, splitNumber, splitIncrement, streamCount,
+                               compression, compressionThreads,
+                               ringSize, bufferSize);
     }
 
     private ByteOrder getByteOrder(JSONObject opts) {
@@ -71,20 +173,72 @@ public class EvioToEvioWriter extends AbstractEventWriterService<EventWriter> {
 
     @Override
     protected void closeWriter() {
-        writer.close();
+        long start = metrics.start();
+        try {
+            if (reorder != null) {
+                reorder.close();
+                reorder = null;
+            }
+        } catch (EventWriterException e) {
+            System.err.printf("%s service: %s%n", getName(), e.getMessage());
+        }
+        try {
+            writer.close();
+        } catch (EventWriterException e) {
+            System.err.printf("%s service: %s%n", getName(), e.getMessage());
+        }
+        metrics.record(ServiceMetrics.CLOSE, start, null);
+        metrics.print(getName());
     }
 
     @Override
-    protected void writeEvent(Object event) throws EventWriterException {
+    public EngineData execute(EngineData input) {
+        if (ServiceMetrics.isRequest(input)) {
+            return metrics.report();
+        }
+        sequence.setFrom(input.getCommunicationId());
         try {
+            return super.execute(input);
+        } finally {
+            sequence.clear();
+        }
+    }
+
+    @Override
+    protected void writeEvent(Object event) throws EventWriterException {
+        // the buffers may be recycled once written
+        long start = metrics.start();
+        long bytes = start != 0 ? ServiceMetrics.byteCount(event) : 0;
+        if (reorder != null) {
+            reorder.write(sequence.get(), event);
+        } else {
+            writeData(event);
+        }
+        metrics.record(ServiceMetrics.WRITE_EVENT, start,
+                       ServiceMetrics.eventCount(event), bytes);
+    }
+
+    private void writeData(Object event) throws EventWriterException {
+        if (event instanceof List) {
+            for (Object e : (List<?>) event) {
+                writer.writeEvent((ByteBuffer) e);
+            }
+        } else {
             writer.writeEvent((ByteBuffer) event);
-        } catch (EvioException | IOException e) {
-            throw new EventWriterException(e);
         }
     }
 
     @Override
     protected EngineDataType getDataType() {
-        return Clas12Types.EVIO;
+        return batch ? Clas12Types.EVIO_BUNDLE : Clas12Types.EVIO;
+    }
+
+    @Override
+    public Set<EngineDataType> getInputDataTypes() {
+        Set<EngineDataType> types = new HashSet<>(super.getInputDataTypes());
+        types.add(EngineDataType.STRING);
+        types.add(Clas12Types.EVIO);
+        types.add(Clas12Types.EVIO_BUNDLE);
+        return types;
     }
 }
@@ -0,0 +1,233 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clara.std.services.AbstractEventReaderService;
+import org.jlab.clara.std.services.EventReaderException;
+import org.jlab.clas.std.services.util.Clas12Types;
+import org.jlab.coda.jevio.EvioException;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.jlab.jnp.utils.file.FileUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Converter service that converts EvIO persistent data to HIPO transient data
+ * (i.e. reads EvIO events from an input file and decodes them into HIPO events).
+ * <p>
+ * The events are read in order and decoded by a pool of threads,
+ * with a bounded number of events read ahead of the requests.
+ * The decoding is done by the configured {@link EvioEventConverter}.
+ */
+public class EvioToHipoReader extends AbstractEventReaderService<EventFile<ByteBuffer>> {
+
+    private static final String CONF_CONVERTER = "converter";
+    private static final String CONF_SCHEMA_DIR = "schema_dir";
+    private static final String CONF_SCHEMA_FILTER = "schema_filter";
+    private static final String CONF_THREADS = "threads";
+    private static final String CONF_PREFETCH = "prefetch";
+    private static final String CONF_BATCH = "batch";
+
+    private final Object readLock = new Object();
+
+    private final EventSequence sequence = new EventSequence();
+    private final ServiceMetrics metrics = new ServiceMetrics();
+
+    private EventSelection<ByteBuffer> selection;
+    private volatile boolean ordered;
+    private volatile int batchSize = 1;
+    private volatile boolean bundled;
+    private EventPrefetcher<HipoEvent> prefetcher;
+
+    private EvioConverterFactory converters;
+
+    @Override
+    protected EventFile<ByteBuffer> createReader(Path file, JSONObject opts)
+            throws EventReaderException {
+        metrics.configure(getName(), opts);
+        long start = metrics.start();
+        configureConverter(opts);
+
+        List<Path> files = ChainedEventFile.inputFiles(file, opts);
+        EventFile<ByteBuffer> reader;
+        if (files.size() == 1) {
+            reader = openFile(files.get(0));
+        } else {
+            System.out.printf("%s service: chained input = %d files%n", getName(), files.size());
+            reader = ChainedEventFile.open(getName(), files, this::openFile);
+        }
+        selection = createSelection(reader, opts);
+        ordered = opts.optBoolean(EventSequence.CONF_ORDERED, false);
+        if (ordered) {
+            System.out.printf("%s service: ordered output = %b%n", getName(), ordered);
+        }
+
+        int threads = Math.max(opts.optInt(CONF_THREADS, 1), 1);
+        int depth = Math.max(opts.optInt(CONF_PREFETCH, 2 * threads), threads);
+        System.out.printf("%s service: conversion threads = %d%n", getName(), threads);
+        System.out.printf("%s service: prefetch depth = %d%n", getName(), depth);
+        prefetcher = new EventPrefetcher<>(getName(),
+                                           this::convertSelectedEvent,
+                                           selection.size(),
+                                           depth,
+                                           threads);
+        batchSize = Math.max(opts.optInt(CONF_BATCH, 1), 1);
+        if (batchSize > 1) {
+            System.out.printf("%s service: batch size = %d%n", getName(), batchSize);
+        }
+        bundled = batchSize > 1 || selection.isFiltered();
+        metrics.record(ServiceMetrics.OPEN, start, null);
+        return reader;
+    }
+
+    private void configureConverter(JSONObject opts) throws EventReaderException {
+        String className;
+        try {
+            className = opts.getString(CONF_CONVERTER);
+        } catch (JSONException e) {
+            throw new EventReaderException("missing EVIO to HIPO converter", e);
+        }
+        System.out.printf("%s service: converter = %s%n", getName(), className);
+
+        String schemaDir = FileUtils.getEnvironmentPath("CLAS12DIR", "etc/bankdefs/hipo");
+        if (opts.has(CONF_SCHEMA_DIR)) {
+            schemaDir = opts.getString(CONF_SCHEMA_DIR);
+            System.out.printf("%s service: schema directory = %s%n", getName(), schemaDir);
+        }
+        SchemaFactory schemas = SchemaCache.get(schemaDir);
+
+        boolean schemaFilter = opts.has(CONF_SCHEMA_DIR)
+                && opts.optBoolean(CONF_SCHEMA_FILTER, true);
+        if (opts.has(CONF_SCHEMA_DIR)) {
+            System.out.printf("%s service: schema filter = %b%n", getName(), schemaFilter);
+        }
+
+        converters = new EvioConverterFactory(className, schemas, schemaFilter, opts);
+    }
+
+    private EventSelection<ByteBuffer> createSelection(EventFile<ByteBuffer> reader,
+                                                       JSONObject opts)
+            throws EventReaderException {
+        try {
+            EventRange range = EventRange.fromConfig(opts, reader.getEventCount());
+            if (!range.isWholeFile(reader.getEventCount())) {
+                System.out.printf("%s service: event range = %s%n", getName(), range);
+            }
+            EvioEventFilter filter = EvioEventFilter.fromConfig(opts);
+            if (filter != null) {
+                System.out.printf("%s service: filter = %s%n", getName(), filter);
+            }
+            return new EventSelection<>(range, filter);
+        } catch (EventReaderException | JSONException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    private EventFile<ByteBuffer> openFile(Path file) throws EventReaderException {
+        try {
+            return new EvioCompactFile(file, null);
+        } catch (EvioException | IOException e) {
+            throw new EventReaderException(e);
+        }
+    }
+
+    @Override
+    protected void closeReader() {
+        long start = metrics.start();
+        if (prefetcher != null) {
+            prefetcher.close();
+            prefetcher = null;
+        }
+        reader.close();
+        metrics.record(ServiceMetrics.CLOSE, start, null);
+        metrics.print(getName());
+    }
+
+    @Override
+    public int readEventCount() throws EventReaderException {
+        int eventCount = selection.size();
+        if (bundled) {
+            return (eventCount + batchSize - 1) / batchSize;
+        }
+        return eventCount;
+    }
+
+    @Override
+    public ByteOrder readByteOrder() throws EventReaderException {
+        return ByteOrder.LITTLE_ENDIAN;
+    }
+
+    @Override
+    public EngineData execute(EngineData input) {
+        if (ServiceMetrics.isRequest(input)) {
+            return metrics.report();
+        }
+        return sequence.stamp(super.execute(input));
+    }
+
+    @Override
+    public Object readEvent(int eventNumber) throws EventReaderException {
+        if (ordered) {
+            sequence.set(eventNumber);
+        }
+        long start = metrics.start();
+        Object event;
+        if (bundled) {
+            int first = eventNumber * batchSize;
+            int last = Math.min(first + batchSize, selection.size());
+            List<HipoEvent> events = new ArrayList<>(batchSize);
+            for (int i = first; i < last; i++) {
+                HipoEvent selected = prefetcher.readEvent(i);
+                if (selected != null) {
+                    events.add(selected);
+                }
+            }
+            event = events;
+        } else {
+            event = prefetcher.readEvent(eventNumber);
+        }
+        metrics.record(ServiceMetrics.READ_EVENT, start, event);
+        return event;
+    }
+
+    private HipoEvent convertSelectedEvent(int eventNumber) throws EventReaderException {
+        ByteBuffer event;
+        // the input files are read by a single thread at a time
+        synchronized (readLock) {
+            long start = metrics.start();
+            event = selection.readEvent(reader, eventNumber);
+            metrics.record(ServiceMetrics.FILE_READ, start, event);
+        }
+        if (event == null) {
+            return null;
+        }
+        long start = metrics.start();
+        HipoEvent hipoEvent = converters.get().convert(event);
+        metrics.record(ServiceMetrics.CONVERT, start, hipoEvent);
+        return hipoEvent;
+    }
+
+    @Override
+    protected EngineDataType getDataType() {
+        return bundled ? Clas12Types.HIPO_BUNDLE : Clas12Types.HIPO;
+    }
+
+    @Override
+    public Set<EngineDataType> getOutputDataTypes() {
+        Set<EngineDataType> types = new HashSet<>(super.getOutputDataTypes());
+        types.add(Clas12Types.HIPO);
+        types.add(Clas12Types.HIPO_BUNDLE);
+        return types;
+    }
+}
@@ -0,0 +1,55 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.jlab.jnp.hipo.io.HipoReader;
+
+/**
+ * A HIPO file read with {@link HipoReader}.
+ */
+final class HipoEventFile implements EventFile<HipoEvent> {
+
+    private final HipoReader reader;
+
+    /**
+     * Opens the given HIPO file.
+     *
+     * @param file the input file
+     * @throws EventReaderException if the file could not be opened
+     */
+    HipoEventFile(Path file) throws EventReaderException {
+        try {
+            this.reader = new HipoReader();
+            this.reader.open(file.toString());
+        } catch (Exception e) {
+            throw new EventReaderException(e);
+        }
+    }
+
+    @Override
+    public int getEventCount() {
+        return reader.getEventCount();
+    }
+
+    @Override
+    public ByteOrder getByteOrder() {
+        return ByteOrder.LITTLE_ENDIAN;
+    }
+
+    @Override
+    public HipoEvent readEvent(int eventNumber) throws EventReaderException {
+        try {
+            return reader.readEvent(eventNumber);
+        } catch (Exception e) {
+            throw new EventReaderException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        reader.close();
+    }
+}
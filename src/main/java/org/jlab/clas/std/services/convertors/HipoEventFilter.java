@@ -0,0 +1,62 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Accepts the HIPO events that contain all the given banks.
+ * The banks are identified by their group number, and only the group index
+ * of the event is checked, so the banks are not decoded.
+ * The HIPO files cannot check an event without reading it, but the reader
+ * keeps the accepted events, so each event is read only once.
+ */
+final class HipoEventFilter implements Predicate<HipoEvent> {
+
+    static final String CONF_FILTER_BANKS = "filter_banks";
+
+    private final int[] groups;
+
+    private HipoEventFilter(int[] groups) {
+        this.groups = groups;
+    }
+
+    /**
+     * Creates the filter configured for the reader.
+     *
+     * @param opts the reader configuration
+     * @return the filter, or null if no filter is configured
+     */
+    static HipoEventFilter fromConfig(JSONObject opts) {
+        if (!opts.has(CONF_FILTER_BANKS)) {
+            return null;
+        }
+        JSONArray array = opts.optJSONArray(CONF_FILTER_BANKS);
+        if (array == null) {
+            return new HipoEventFilter(new int[] {opts.getInt(CONF_FILTER_BANKS)});
+        }
+        int[] groups = new int[array.length()];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = array.getInt(i);
+        }
+        return new HipoEventFilter(groups);
+    }
+
+    @Override
+    public boolean test(HipoEvent event) {
+        for (int group : groups) {
+            if (!event.hasGroup(group)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return "banks = " + Arrays.toString(groups);
+    }
+}
@@ -0,0 +1,47 @@
+package org.jlab.clas.std.services.convertors;
+
+import org.jlab.clara.std.services.EventWriterException;
+import org.jlab.clas.std.services.util.LazyHipoEvent;
+import org.jlab.jnp.hipo.io.HipoWriter;
+
+/**
+ * A HIPO file written with {@link HipoWriter}.
+ * The records are compressed by the writer when they are full.
+ * <p>
+ * Unless the writer filters the banks by schema, the events are written
+ * with their raw bytes, so events that were not parsed are never parsed.
+ */
+final class HipoOutputFile implements EventOutput<LazyHipoEvent> {
+
+    private final HipoWriter writer;
+    private final boolean filter;
+
+    /**
+     * Wraps an open HIPO file.
+     *
+     * @param writer the writer of the file
+     * @param filter if the writer filters the banks of the events
+     */
+    HipoOutputFile(HipoWriter writer, boolean filter) {
+        this.writer = writer;
+        this.filter = filter;
+    }
+
+    @Override
+    public void writeEvent(LazyHipoEvent event) throws EventWriterException {
+        try {
+            if (filter) {
+                writer.writeEvent(event.getEvent());
+            } else {
+                writer.writeEvent(event.getDataBuffer());
+            }
+        } catch (Exception e) {
+            throw new EventWriterException(e);
+        }
+    }
+
+    @Override
+    public void close() throws EventWriterException {
+        writer.close();
+    }
+}
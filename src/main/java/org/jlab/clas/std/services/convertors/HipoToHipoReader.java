@@ -2,58 +2,146 @@ package org.jlab.clas.std.services.convertors;
 
 import java.nio.ByteOrder;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import org.jlab.clara.engine.EngineData;
 import org.jlab.clara.engine.EngineDataType;
 import org.jlab.clara.std.services.AbstractEventReaderService;
 import org.jlab.clara.std.services.EventReaderException;
 import org.jlab.clas.std.services.util.Clas12Types;
-import org.jlab.jnp.hipo.io.HipoReader;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.json.JSONException;
 import org.json.JSONObject;
 
 /**
  * Service that converts HIPO persistent data to HIPO transient data
  * (i.e. reads HIPO events from an input file)
  */
-public class HipoToHipoReader extends AbstractEventReaderService<HipoReader> {
+public class HipoToHipoReader extends AbstractEventReaderService<EventFile<HipoEvent>> {
+
+    private static final String CONF_BATCH = "batch";
+
+    private final EventSequence sequence = new EventSequence();
+    private final ServiceMetrics metrics = new ServiceMetrics();
+
+    private EventSelection<HipoEvent> selection;
+    private volatile boolean ordered;
+    private volatile int batchSize = 1;
+    private volatile boolean bundled;
 
     @Override
-    protected HipoReader createReader(Path file, JSONObject opts)
+    protected EventFile<HipoEvent> createReader(Path file, JSONObject opts)
+            throws EventReaderException {
+        metrics.configure(getName(), opts);
+        long start = metrics.start();
+        List<Path> files = ChainedEventFile.inputFiles(file, opts);
+        EventFile<HipoEvent> reader;
+        if (files.size() == 1) {
+            reader = new HipoEventFile(files.get(0));
+        } else {
+            System.out.printf("%s service: chained input = %d files%n", getName(), files.size());
+            reader = ChainedEventFile.open(getName(), files, HipoEventFile::new);
+        }
+        selection = createSelection(reader, opts);
+        ordered = opts.optBoolean(EventSequence.CONF_ORDERED, false);
+        if (ordered) {
+            System.out.printf("%s service: ordered output = %b%n", getName(), ordered);
+        }
+        batchSize = Math.max(opts.optInt(CONF_BATCH, 1), 1);
+        if (batchSize > 1) {
+            System.out.printf("%s service: batch size = %d%n", getName(), batchSize);
+        }
+        bundled = batchSize > 1 || selection.isFiltered();
+        metrics.record(ServiceMetrics.OPEN, start, null);
+        return reader;
+    }
+
+    private EventSelection<HipoEvent> createSelection(EventFile<HipoEvent> reader, JSONObject opts)
             throws EventReaderException {
         try {
-            HipoReader reader = new HipoReader();
-            reader.open(file.toString());
-            return reader;
-        } catch (Exception e) {
-            throw new EventReaderException(e);
+            EventRange range = EventRange.fromConfig(opts, reader.getEventCount());
+            if (!range.isWholeFile(reader.getEventCount())) {
+                System.out.printf("%s service: event range = %s%n", getName(), range);
+            }
+            HipoEventFilter filter = HipoEventFilter.fromConfig(opts);
+            if (filter != null) {
+                System.out.printf("%s service: filter = %s%n", getName(), filter);
+            }
+            return new EventSelection<>(range, filter);
+        } catch (EventReaderException | JSONException e) {
+            reader.close();
+            throw e;
         }
     }
 
     @Override
     protected void closeReader() {
+        long start = metrics.start();
         reader.close();
+        metrics.record(ServiceMetrics.CLOSE, start, null);
+        metrics.print(getName());
     }
 
     @Override
     public int readEventCount() throws EventReaderException {
-        return reader.getEventCount();
+        int eventCount = selection.size();
+        if (bundled) {
+            return (eventCount + batchSize - 1) / batchSize;
+        }
+        return eventCount;
     }
 
     @Override
     public ByteOrder readByteOrder() throws EventReaderException {
-        return ByteOrder.LITTLE_ENDIAN;
+        return reader.getByteOrder();
+    }
+
+    @Override
+    public EngineData execute(EngineData input) {
+        if (ServiceMetrics.isRequest(input)) {
+            return metrics.report();
+        }
+        return sequence.stamp(super.execute(input));
     }
 
     @Override
     public Object readEvent(int eventNumber) throws EventReaderException {
-        try {
-            return reader.readEvent(eventNumber);
-        } catch (Exception e) {
-            throw new EventReaderException(e);
+        if (ordered) {
+            sequence.set(eventNumber);
         }
+        long start = metrics.start();
+        Object event;
+        if (bundled) {
+            int first = eventNumber * batchSize;
+            int last = Math.min(first + batchSize, selection.size());
+            List<HipoEvent> events = new ArrayList<>(batchSize);
+            for (int i = first; i < last; i++) {
+                HipoEvent selected = selection.readEvent(reader, i);
+                if (selected != null) {
+                    events.add(selected);
+                }
+            }
+            event = events;
+        } else {
+            event = selection.readEvent(reader, eventNumber);
+        }
+        metrics.record(ServiceMetrics.READ_EVENT, start, event);
+        return event;
     }
 
     @Override
     protected EngineDataType getDataType() {
-        return Clas12Types.HIPO;
+        return bundled ? Clas12Types.HIPO_BUNDLE : Clas12Types.HIPO;
+    }
+
+    @Override
+    public Set<EngineDataType> getOutputDataTypes() {
+        Set<EngineDataType> types = new HashSet<>(super.getOutputDataTypes());
+        types.add(Clas12Types.HIPO);
+        types.add(Clas12Types.HIPO_BUNDLE);
+        return types;
     }
 }
@@ -3,11 +3,16 @@ package org.jlab.clas.std.services.convertors;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
+import org.jlab.clara.engine.EngineData;
 import org.jlab.clara.engine.EngineDataType;
 import org.jlab.clara.std.services.AbstractEventWriterService;
 import org.jlab.clara.std.services.EventWriterException;
 import org.jlab.clas.std.services.util.Clas12Types;
+import org.jlab.clas.std.services.util.LazyHipoEvent;
 import org.jlab.jnp.hipo.data.HipoEvent;
 import org.jlab.jnp.hipo.io.HipoWriter;
 import org.jlab.jnp.utils.file.FileUtils;
@@ -16,26 +21,56 @@ import org.json.JSONObject;
 /**
  * Service that converts HIPO transient data to HIPO persistent data
  * (i.e. writes HIPO events to an output file).
+ * <p>
+ * The received events are not parsed, unless the banks are filtered by schema.
  */
-public class HipoToHipoWriter extends AbstractEventWriterService<HipoWriter> {
+public class HipoToHipoWriter extends AbstractEventWriterService<EventOutput<LazyHipoEvent>> {
 
     private static final String CONF_COMPRESSION = "compression";
     private static final String CONF_SCHEMA_DIR = "schema_dir";
     private static final String CONF_SCHEMA_FILTER = "schema_filter";
+    private static final String CONF_BATCH = "batch";
+
+    private final EventSequence sequence = new EventSequence();
+    private final ServiceMetrics metrics = new ServiceMetrics();
+
+    private volatile boolean batch;
+    private volatile ReorderBuffer<Object> reorder;
 
     @Override
-    protected HipoWriter createWriter(Path file, JSONObject opts) throws EventWriterException {
+    protected EventOutput<LazyHipoEvent> createWriter(Path file, JSONObject opts)
+            throws EventWriterException {
+        metrics.configure(getName(), opts);
+        long start = metrics.start();
+        batch = opts.optBoolean(CONF_BATCH, false);
+        if (batch) {
+            System.out.printf("%s service: batch input = %b%n", getName(), batch);
+        }
+        reorder = ReorderBuffer.fromConfig(getName(), opts, this::writeData,
+                                           getDataType().serializer());
+        EventOutput<LazyHipoEvent> output = EventOutputs.create(getName(), file, opts,
+                                                                f -> openFile(f, opts),
+                                                                e -> e.getDataBuffer().length,
+                                                                metrics);
+        metrics.record(ServiceMetrics.OPEN, start, null);
+        return output;
+    }
+
+    private EventOutput<LazyHipoEvent> openFile(Path file, JSONObject opts)
+            throws EventWriterException {
         try {
             HipoWriter writer = new HipoWriter();
-            configure(writer, opts);
+            boolean filter = configure(writer, opts);
             writer.open(file.toString());
-            return writer;
+            return new HipoOutputFile(writer, filter);
+        } catch (EventWriterException e) {
+            throw e;
         } catch (Exception e) {
             throw new EventWriterException(e);
         }
     }
 
-    private void configure(HipoWriter writer, JSONObject opts) {
+    private boolean configure(HipoWriter writer, JSONObject opts) throws EventWriterException {
         if (opts.has(CONF_COMPRESSION)) {
             int compression = opts.getInt(CONF_COMPRESSION);
             System.out.printf("%s service: compression level = %d%n", getName(), compression);
@@ -47,42 +82,130 @@ public class HipoToHipoWriter extends AbstractEventWriterService<HipoWriter> {
             schemaDir = opts.getString(CONF_SCHEMA_DIR);
             System.out.printf("%s service: schema directory = %s%n", getName(), schemaDir);
         }
-        writer.getSchemaFactory().initFromDirectory(schemaDir);
+        writer.getSchemaFactory().copy(SchemaCache.get(schemaDir));
 
         if (opts.has(CONF_SCHEMA_DIR)) {
-            try {
-                // previous releases of COATJAVA may not have the setter
-                Method filterSetter = getSchemaFilterSetter();
-                boolean useFilter = opts.optBoolean(CONF_SCHEMA_FILTER, true);
-                System.out.printf("%s service: schema filter = %b%n", getName(), useFilter);
-                filterSetter.invoke(writer, useFilter);
-            } catch (NoSuchMethodException | IllegalAccessException
-                        | IllegalArgumentException | InvocationTargetException e) {
-                System.out.printf("%s service: schema filter not supported%n", getName());
+            boolean useFilter = opts.optBoolean(CONF_SCHEMA_FILTER, true);
+            System.out.printf("%s service: schema filter = %b%n", getName(), useFilter);
+            setSchemaFilter(writer, useFilter);
+            return useFilter;
+        }
+        return false;
+    }
+
+    private static void setSchemaFilter(HipoWriter writer, boolean filter)
+            throws EventWriterException {
+        Method setter = SchemaFilterSetter.METHOD;
+        if (setter == null) {
+            if (filter) {
+                throw new EventWriterException("the schema filter is not supported by this "
+                        + "version of the HIPO library, set '" + CONF_SCHEMA_FILTER
+                        + "' to false");
             }
+            return;
+        }
+        try {
+            setter.invoke(writer, filter);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            throw new EventWriterException("could not set the schema filter", e);
         }
     }
 
-    private Method getSchemaFilterSetter() throws NoSuchMethodException, SecurityException {
-        return HipoWriter.class.getMethod("setSchemaFilter", boolean.class);
+    /*
+     * Previous releases of COATJAVA may not have the setter.
+     * It is only looked up (once) when a writer is configured with a schema
+     * directory, and a missing setter fails that configuration.
+     */
+    private static final class SchemaFilterSetter {
+
+        private static final Method METHOD = lookup();
+
+        private SchemaFilterSetter() { }
+
+        private static Method lookup() {
+            try {
+                return HipoWriter.class.getMethod("setSchemaFilter", boolean.class);
+            } catch (NoSuchMethodException | SecurityException e) {
+                return null;
+            }
+        }
     }
 
     @Override
     protected void closeWriter() {
-        writer.close();
+        long start = metrics.start();
+        try {
+            if (reorder != null) {
+                reorder.close();
+                reorder = null;
+            }
+        } catch (EventWriterException e) {
+            System.err.printf("%s service: %s%n", getName(), e.getMessage());
+        }
+        try {
+            writer.close();
+        } catch (EventWriterException e) {
+            System.err.printf("%s service: %s%n", getName(), e.getMessage());
+        }
+        metrics.record(ServiceMetrics.CLOSE, start, null);
+        metrics.print(getName());
     }
 
     @Override
-    protected void writeEvent(Object event) throws EventWriterException {
+    public EngineData execute(EngineData input) {
+        if (ServiceMetrics.isRequest(input)) {
+            return metrics.report();
+        }
+        sequence.setFrom(input.getCommunicationId());
         try {
-            writer.writeEvent((HipoEvent) event);
-        } catch (Exception e) {
-            throw new EventWriterException(e);
+            return super.execute(input);
+        } finally {
+            sequence.clear();
+        }
+    }
+
+    @Override
+    protected void writeEvent(Object event) throws EventWriterException {
+        long start = metrics.start();
+        long bytes = start != 0 ? ServiceMetrics.byteCount(event) : 0;
+        if (reorder != null) {
+            reorder.write(sequence.get(), event);
+        } else {
+            writeData(event);
         }
+        metrics.record(ServiceMetrics.WRITE_EVENT, start,
+                       ServiceMetrics.eventCount(event), bytes);
+    }
+
+    private void writeData(Object event) throws EventWriterException {
+        if (event instanceof List) {
+            for (Object e : (List<?>) event) {
+                writer.writeEvent(toLazyEvent(e));
+            }
+        } else {
+            writer.writeEvent(toLazyEvent(event));
+        }
+    }
+
+    // services in the same process may pass the events without serialization
+    private static LazyHipoEvent toLazyEvent(Object event) {
+        if (event instanceof HipoEvent) {
+            return LazyHipoEvent.of((HipoEvent) event);
+        }
+        return (LazyHipoEvent) event;
     }
 
     @Override
     protected EngineDataType getDataType() {
-        return Clas12Types.HIPO;
+        return batch ? Clas12Types.HIPO_LAZY_BUNDLE : Clas12Types.HIPO_LAZY;
+    }
+
+    @Override
+    public Set<EngineDataType> getInputDataTypes() {
+        Set<EngineDataType> types = new HashSet<>(super.getInputDataTypes());
+        types.add(EngineDataType.STRING);
+        types.add(Clas12Types.HIPO_LAZY);
+        types.add(Clas12Types.HIPO_LAZY_BUNDLE);
+        return types;
     }
 }
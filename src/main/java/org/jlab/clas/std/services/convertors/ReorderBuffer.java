@@ -0,0 +1,281 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.jlab.clara.base.error.ClaraException;
+import org.jlab.clara.engine.ClaraSerializer;
+import org.jlab.clara.std.services.EventWriterException;
+import org.json.JSONObject;
+
+/**
+ * Restores the input order of the events received by a writer.
+ * <p>
+ * Each event comes with its sequence number (see {@link EventSequence}).
+ * The events are written as soon as all the previous events have been
+ * written, and the events that arrive early are held until then.
+ * At most {@value #CONF_MEMORY} events are held in memory, and the rest
+ * are spilled to a temporary file (at most {@value #CONF_SPILL} events),
+ * starting with the events that will be needed last.
+ * <p>
+ * Events that never arrive (i.e. failed in the reconstruction) would stall
+ * the output, so when the buffer is full the missing events are skipped
+ * and the next held event is written. Events that arrive after they were
+ * skipped, or without a sequence number (i.e. not read by an ordered reader),
+ * are written immediately.
+ *
+ * @param <T> the type of the events
+ */
+final class ReorderBuffer<T> {
+
+    static final String CONF_MEMORY = "reorder_buffer";
+    static final String CONF_SPILL = "reorder_spill";
+    static final String CONF_SPILL_DIR = "spill_dir";
+
+    static final int DEFAULT_MEMORY = 1_000;
+    static final int DEFAULT_SPILL = 100_000;
+
+    /**
+     * Writes the events in order.
+     *
+     * @param <T> the type of the events
+     */
+    @FunctionalInterface
+    interface Sink<T> {
+        void write(T event) throws EventWriterException;
+    }
+
+    private static final class SpilledEvent {
+
+        private final long position;
+        private final int length;
+        private final ByteOrder order;
+
+        SpilledEvent(long position, int length, ByteOrder order) {
+            this.position = position;
+            this.length = length;
+            this.order = order;
+        }
+    }
+
+    private final String name;
+    private final Sink<T> sink;
+    private final ClaraSerializer serializer;
+    private final int memoryCapacity;
+    private final int spillCapacity;
+    private final Path spillDir;
+
+    private final TreeMap<Long, T> held = new TreeMap<>();
+    private final TreeMap<Long, SpilledEvent> spilled = new TreeMap<>();
+    private FileChannel spillFile;
+    private long spillPosition;
+
+    private long next;
+    private long skipped;
+    private long late;
+    private long unsequenced;
+
+    /**
+     * Creates a new reorder buffer.
+     *
+     * @param name the name of the service, used for the spill file
+     * @param sink writes the events in order
+     * @param serializer serializes the events spilled to disk
+     * @param memoryCapacity the maximum number of events held in memory
+     * @param spillCapacity the maximum number of events spilled to disk
+     * @param spillDir the directory of the spill file
+     */
+    ReorderBuffer(String name, Sink<T> sink, ClaraSerializer serializer,
+                  int memoryCapacity, int spillCapacity, Path spillDir) {
+        if (memoryCapacity <= 0 || spillCapacity < 0) {
+            throw new IllegalArgumentException("invalid reorder buffer capacity");
+        }
+        this.name = name;
+        this.sink = sink;
+        this.serializer = serializer;
+        this.memoryCapacity = memoryCapacity;
+        this.spillCapacity = spillCapacity;
+        this.spillDir = spillDir;
+    }
+
+    /**
+     * Creates the reorder buffer of a writer, if the writer is configured
+     * with {@value EventSequence#CONF_ORDERED}.
+     *
+     * @param <T> the type of the events
+     * @param name the name of the service
+     * @param opts the writer configuration
+     * @param sink writes the events in order
+     * @param serializer serializes the events spilled to disk
+     * @return the reorder buffer, or null if the output is not ordered
+     */
+    static <T> ReorderBuffer<T> fromConfig(String name, JSONObject opts, Sink<T> sink,
+                                           ClaraSerializer serializer) {
+        if (!opts.optBoolean(EventSequence.CONF_ORDERED, false)) {
+            return null;
+        }
+        int memory = opts.optInt(CONF_MEMORY, DEFAULT_MEMORY);
+        int spill = opts.optInt(CONF_SPILL, DEFAULT_SPILL);
+        Path dir = Paths.get(opts.optString(CONF_SPILL_DIR,
+                                            System.getProperty("java.io.tmpdir")));
+        System.out.printf("%s service: ordered output = %d in memory, %d on disk%n",
+                          name, memory, spill);
+        return new ReorderBuffer<>(name, sink, serializer, memory, spill, dir);
+    }
+
+    /**
+     * Writes the event if all the previous events have been written,
+     * or holds it until then.
+     *
+     * @param sequence the sequence number of the event, or -1 if it is not known
+     * @param event the event
+     * @throws EventWriterException if an event could not be written or spilled
+     */
+    synchronized void write(long sequence, T event) throws EventWriterException {
+        if (sequence < 0) {
+            unsequenced++;
+            sink.write(event);
+            return;
+        }
+        if (sequence < next) {
+            late++;
+            sink.write(event);
+            return;
+        }
+        if (sequence == next) {
+            sink.write(event);
+            next++;
+            drain();
+            return;
+        }
+        hold(sequence, event);
+        if (held.size() + spilled.size() > memoryCapacity + spillCapacity) {
+            skip();
+        }
+    }
+
+    private void hold(long sequence, T event) throws EventWriterException {
+        if (held.size() < memoryCapacity || spillCapacity == 0) {
+            held.put(sequence, event);
+            return;
+        }
+        // keep in memory the events that will be needed first
+        Map.Entry<Long, T> last = held.lastEntry();
+        if (last.getKey() > sequence) {
+            held.pollLastEntry();
+            held.put(sequence, event);
+            spill(last.getKey(), last.getValue());
+        } else {
+            spill(sequence, event);
+        }
+    }
+
+    private void skip() throws EventWriterException {
+        long first = held.isEmpty() ? Long.MAX_VALUE : held.firstKey();
+        if (!spilled.isEmpty()) {
+            first = Math.min(first, spilled.firstKey());
+        }
+        skipped += first - next;
+        next = first;
+        drain();
+    }
+
+    private void drain() throws EventWriterException {
+        while (true) {
+            T event = held.remove(next);
+            if (event == null) {
+                SpilledEvent spilledEvent = spilled.remove(next);
+                if (spilledEvent == null) {
+                    break;
+                }
+                event = readBack(spilledEvent);
+            }
+            sink.write(event);
+            next++;
+        }
+    }
+
+    private void spill(long sequence, T event) throws EventWriterException {
+        try {
+            if (spillFile == null) {
+                Path file = Files.createTempFile(spillDir, name + "-", ".reorder");
+                spillFile = FileChannel.open(file, StandardOpenOption.READ,
+                                             StandardOpenOption.WRITE,
+                                             StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            ByteBuffer data = serializer.write(event).duplicate();
+            SpilledEvent spilledEvent = new SpilledEvent(spillPosition,
+                                                         data.remaining(),
+                                                         data.order());
+            while (data.hasRemaining()) {
+                spillPosition += spillFile.write(data, spillPosition);
+            }
+            spilled.put(sequence, spilledEvent);
+        } catch (IOException | ClaraException e) {
+            throw new EventWriterException("Could not spill event " + sequence, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T readBack(SpilledEvent spilledEvent) throws EventWriterException {
+        try {
+            ByteBuffer data = ByteBuffer.allocate(spilledEvent.length);
+            long position = spilledEvent.position;
+            while (data.hasRemaining()) {
+                int n = spillFile.read(data, position);
+                if (n < 0) {
+                    throw new IOException("unexpected end of spill file");
+                }
+                position += n;
+            }
+            data.flip();
+            data.order(spilledEvent.order);
+            if (spilled.isEmpty()) {
+                // reuse the file from the start
+                spillPosition = 0;
+            }
+            return (T) serializer.read(data);
+        } catch (IOException | ClaraException e) {
+            throw new EventWriterException("Could not read spilled event", e);
+        }
+    }
+
+    /**
+     * Writes all the held events, in order, and removes the spill file.
+     *
+     * @throws EventWriterException if an event could not be written
+     */
+    synchronized void close() throws EventWriterException {
+        try {
+            while (!held.isEmpty() || !spilled.isEmpty()) {
+                skip();
+            }
+        } finally {
+            if (spillFile != null) {
+                try {
+                    spillFile.close();
+                } catch (IOException e) {
+                    System.err.printf("%s service: could not remove spill file: %s%n",
+                                      name, e.getMessage());
+                }
+                spillFile = null;
+            }
+        }
+        if (skipped > 0 || late > 0) {
+            System.out.printf("%s service: ordered output: %d missing events, "
+                              + "%d events out of order%n", name, skipped, late);
+        }
+        if (unsequenced > 0) {
+            System.out.printf("%s service: ordered output: %d events without "
+                              + "sequence number (is the reader ordered?)%n", name, unsequenced);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.function.ToLongFunction;
+
+import org.jlab.clara.std.services.EventWriterException;
+
+/**
+ * Writes events into a sequence of output files of limited size.
+ * <p>
+ * When the next event would make the current file larger than the maximum
+ * size, the file is closed and the event is written into a new file.
+ * A single event larger than the maximum size is written alone into a file.
+ *
+ * @param <T> the type of the events
+ */
+final class RollingOutput<T> implements EventOutput<T> {
+
+    /**
+     * Opens the given part of the sequence of output files.
+     *
+     * @param <T> the type of the events
+     */
+    @FunctionalInterface
+    interface PartOpener<T> {
+        EventOutput<T> open(int part) throws EventWriterException;
+    }
+
+    private final PartOpener<T> opener;
+    private final ToLongFunction<T> sizer;
+    private final long maxSize;
+
+    private EventOutput<T> current;
+    private int part;
+    private long size;
+
+    /**
+     * Opens the first file of the sequence.
+     *
+     * @param opener opens each file of the sequence
+     * @param sizer returns the size of an event in the file
+     * @param maxSize the maximum size of each file
+     * @throws EventWriterException if the first file could not be opened
+     */
+    RollingOutput(PartOpener<T> opener, ToLongFunction<T> sizer, long maxSize)
+            throws EventWriterException {
+        this.opener = opener;
+        this.sizer = sizer;
+        this.maxSize = maxSize;
+        this.current = opener.open(0);
+    }
+
+    @Override
+    public void writeEvent(T event) throws EventWriterException {
+        long eventSize = sizer.applyAsLong(event);
+        if (size > 0 && size + eventSize > maxSize) {
+            EventOutput<T> output = current;
+            current = null;
+            output.close();
+            current = opener.open(++part);
+            size = 0;
+        }
+        current.writeEvent(event);
+        size += eventSize;
+    }
+
+    @Override
+    public void close() throws EventWriterException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Stream;
+
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+
+/**
+ * A process-wide cache of the bank definitions parsed from a schema directory.
+ * <p>
+ * A directory is only parsed again when its modification time, or the list
+ * of its files and their modification times, has changed (so replacing a file
+ * with an older copy is also detected). The cached factories are shared,
+ * so they must not be modified.
+ */
+final class SchemaCache {
+
+    private static final ConcurrentMap<Path, Entry> CACHE = new ConcurrentHashMap<>();
+
+    private SchemaCache() { }
+
+    private static final class Entry {
+
+        private final Map<Path, Long> modified;
+        private final SchemaFactory schemas;
+
+        Entry(Map<Path, Long> modified, SchemaFactory schemas) {
+            this.modified = modified;
+            this.schemas = schemas;
+        }
+    }
+
+    /**
+     * Gets the bank definitions in the given directory.
+     *
+     * @param schemaDir the schema directory
+     * @return the parsed definitions, shared with other users of the directory
+     */
+    static SchemaFactory get(String schemaDir) {
+        Path dir = Paths.get(schemaDir).toAbsolutePath().normalize();
+        Map<Path, Long> modified;
+        try {
+            modified = lastModified(dir);
+        } catch (IOException e) {
+            // let the factory report the problem, and try again next time
+            CACHE.remove(dir);
+            return parse(schemaDir);
+        }
+        // parse each directory once, even if it is requested concurrently
+        return CACHE.compute(dir, (k, entry) -> {
+            if (entry != null && entry.modified.equals(modified)) {
+                return entry;
+            }
+            return new Entry(modified, parse(schemaDir));
+        }).schemas;
+    }
+
+    // the modification times of the directory and each of its files
+    private static Map<Path, Long> lastModified(Path dir) throws IOException {
+        Map<Path, Long> modified = new HashMap<>();
+        modified.put(dir, Files.getLastModifiedTime(dir).toMillis());
+        try (Stream<Path> files = Files.list(dir)) {
+            Iterator<Path> it = files.iterator();
+            while (it.hasNext()) {
+                Path file = it.next();
+                modified.put(file, Files.getLastModifiedTime(file).toMillis());
+            }
+        }
+        return modified;
+    }
+
+    private static SchemaFactory parse(String schemaDir) {
+        SchemaFactory schemas = new SchemaFactory();
+        schemas.initFromDirectory(schemaDir);
+        return schemas;
+    }
+}
@@ -0,0 +1,215 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clara.std.services.ServiceUtils;
+import org.jlab.clas.std.services.util.Clas12Types;
+import org.jlab.clas.std.services.util.IoMetrics;
+import org.jlab.clas.std.services.util.LazyHipoEvent;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.json.JSONObject;
+
+/**
+ * Measures the I/O calls of a reader or writer service.
+ * <p>
+ * The metrics are disabled by default. When the service is configured with
+ * {@value #CONF_METRICS}, every open, read, write and close call is timed,
+ * the process-wide timing of the {@link Clas12Types} serializers is enabled,
+ * and the counters of both are printed as JSON when the file is
+ * closed. They can also be requested at any time by sending the
+ * {@value #REQUEST_METRICS} string to the service.
+ * <p>
+ * The counters are lock-free, so the services are measured without adding
+ * contention between the requests.
+ */
+final class ServiceMetrics {
+
+    static final String CONF_METRICS = "metrics";
+    static final String REQUEST_METRICS = "metrics";
+
+    static final String OPEN = "open";
+    static final String CLOSE = "close";
+    static final String READ_EVENT = "read_event";
+    static final String FILE_READ = "file_read";
+    static final String CONVERT = "convert";
+    static final String WRITE_EVENT = "write_event";
+    static final String FILE_WRITE = "file_write";
+    static final String QUEUE_WAIT = "queue_wait";
+
+    private volatile IoMetrics metrics;
+
+    /**
+     * Enables new counters if the configuration requests them,
+     * or disables the metrics.
+     *
+     * @param name the name of the service
+     * @param opts the reader or writer configuration
+     */
+    void configure(String name, JSONObject opts) {
+        boolean enabled = opts.optBoolean(CONF_METRICS, false);
+        if (enabled) {
+            System.out.printf("%s service: metrics = %b%n", name, enabled);
+            // other services in the process may still use them: never disabled here
+            Clas12Types.setSerializerMetrics(true);
+        }
+        metrics = enabled ? new IoMetrics() : null;
+    }
+
+    /**
+     * Checks if the metrics are enabled.
+     *
+     * @return true if the calls are measured
+     */
+    boolean isEnabled() {
+        return metrics != null;
+    }
+
+    /**
+     * Returns the start time of a call.
+     *
+     * @return the current time, or 0 if the metrics are disabled
+     */
+    long start() {
+        return metrics != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records a call that started at the given time.
+     *
+     * @param operation the name of the call
+     * @param start the value returned by {@link #start} at the start of the call
+     * @param event the event (or list of events) processed by the call, or null
+     */
+    void record(String operation, long start, Object event) {
+        if (start != 0) {
+            record(operation, start, eventCount(event), byteCount(event));
+        }
+    }
+
+    /**
+     * Records a call that started at the given time.
+     * Used when the events may be recycled by the call.
+     *
+     * @param operation the name of the call
+     * @param start the value returned by {@link #start} at the start of the call
+     * @param events the number of events processed by the call
+     * @param bytes the number of bytes processed by the call
+     */
+    void record(String operation, long start, int events, long bytes) {
+        IoMetrics m = metrics;
+        if (m != null && start != 0) {
+            m.timer(operation).record(start, events, bytes);
+        }
+    }
+
+    /**
+     * Records the duration of a wait.
+     *
+     * @param operation the name of the wait
+     * @param nanos the duration in nanoseconds
+     */
+    void recordTime(String operation, long nanos) {
+        IoMetrics m = metrics;
+        if (m != null) {
+            m.timer(operation).recordTime(nanos);
+        }
+    }
+
+    /**
+     * Returns the number of events in a read or written object.
+     *
+     * @param event an event, a list of events, or null
+     * @return the number of events
+     */
+    static int eventCount(Object event) {
+        if (event instanceof List) {
+            return ((List<?>) event).size();
+        }
+        return event != null ? 1 : 0;
+    }
+
+    /**
+     * Returns the size of the events in a read or written object.
+     *
+     * @param event an event, a list of events, or null
+     * @return the number of bytes
+     */
+    static long byteCount(Object event) {
+        if (event instanceof ByteBuffer) {
+            return ((ByteBuffer) event).remaining();
+        }
+        if (event instanceof LazyHipoEvent) {
+            return ((LazyHipoEvent) event).getDataBuffer().length;
+        }
+        if (event instanceof HipoEvent) {
+            return ((HipoEvent) event).getDataBuffer().length;
+        }
+        if (event instanceof List) {
+            long bytes = 0;
+            for (Object e : (List<?>) event) {
+                bytes += byteCount(e);
+            }
+            return bytes;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the counters as JSON.
+     *
+     * @return the counters of the service and of the serializers,
+     *         or null if the metrics are disabled
+     */
+    JSONObject toJson() {
+        IoMetrics m = metrics;
+        if (m == null) {
+            return null;
+        }
+        JSONObject json = m.toJson();
+        json.put("serializers", Clas12Types.serializerMetrics().toJson());
+        return json;
+    }
+
+    /**
+     * Checks if the input of a service request asks for the metrics.
+     *
+     * @param input the input of the request
+     * @return true if the input is the {@value #REQUEST_METRICS} string
+     */
+    static boolean isRequest(EngineData input) {
+        return input.getMimeType().equals(EngineDataType.STRING.mimeType())
+                && REQUEST_METRICS.equals(input.getData());
+    }
+
+    /**
+     * Creates the output of a {@value #REQUEST_METRICS} request.
+     *
+     * @return the counters as JSON, or an error if the metrics are disabled
+     */
+    EngineData report() {
+        EngineData output = new EngineData();
+        JSONObject json = toJson();
+        if (json == null) {
+            ServiceUtils.setError(output, "metrics are not enabled");
+        } else {
+            output.setData(EngineDataType.JSON.mimeType(), json.toString());
+        }
+        return output;
+    }
+
+    /**
+     * Prints the counters, if the metrics are enabled.
+     * The counters are kept until the service is configured again.
+     *
+     * @param name the name of the service
+     */
+    void print(String name) {
+        JSONObject json = toJson();
+        if (json != null) {
+            System.out.printf("%s service: metrics = %s%n", name, json);
+        }
+    }
+}
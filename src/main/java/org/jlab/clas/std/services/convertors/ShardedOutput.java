@@ -0,0 +1,50 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jlab.clara.std.services.EventWriterException;
+
+/**
+ * Distributes the events over several outputs in round-robin order.
+ * Each output is usually a separate file written by its own I/O thread.
+ *
+ * @param <T> the type of the events
+ */
+final class ShardedOutput<T> implements EventOutput<T> {
+
+    private final List<EventOutput<T>> shards;
+    private int next;
+
+    ShardedOutput(List<EventOutput<T>> shards) {
+        this.shards = new ArrayList<>(shards);
+    }
+
+    @Override
+    public void writeEvent(T event) throws EventWriterException {
+        EventOutput<T> shard = shards.get(next);
+        next = (next + 1) % shards.size();
+        shard.writeEvent(event);
+    }
+
+    /**
+     * Closes all the shards.
+     * The first error is reported after all shards are closed.
+     */
+    @Override
+    public void close() throws EventWriterException {
+        EventWriterException error = null;
+        for (EventOutput<T> shard : shards) {
+            try {
+                shard.close();
+            } catch (EventWriterException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
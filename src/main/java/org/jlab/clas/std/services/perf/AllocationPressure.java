@@ -0,0 +1,387 @@
+package org.jlab.clas.std.services.perf;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import org.jlab.clara.base.ClaraUtil;
+import org.jlab.clara.engine.Engine;
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clas.std.services.util.Clas12Types;
+import org.jlab.clas.std.services.util.LatencyHistogram;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+/**
+ * Allocates objects on each request with a configurable lifetime profile,
+ * to measure the impact of the garbage collector on the events.
+ * <p>
+ * Each request allocates the configured number of bytes as byte arrays of
+ * the configured size distribution. Most of the objects only live during the
+ * request, but a fraction of them is retained in a live set of fixed size,
+ * where each new object replaces a random old one. The retained objects live
+ * for many requests and are promoted before they die, like the calibration
+ * constants, caches and histograms of the reconstruction.
+ * The input event is returned unchanged.
+ * <p>
+ * The time of each request, the GC pauses, and the GC pause time per event
+ * and as a fraction of the wall time are printed every {@code report} events
+ * and when the service is destroyed. The concurrent cycles of G1, ZGC and
+ * Shenandoah run next to the application threads, so they are not counted
+ * as pauses but reported separately as concurrent GC time. The collections
+ * of CMS mix both kinds and are only counted as concurrent time.
+ * <p>
+ * Configuration (JSON):
+ * <ul>
+ * <li>{@code allocation}: the bytes allocated by each request
+ * <li>{@code size}: the average size of the objects in bytes
+ * <li>{@code size_dist}: {@code fixed} (default), {@code uniform} or {@code normal}
+ * <li>{@code size_spread}: the half-width of the uniform distribution,
+ *     or the standard deviation of the normal distribution, in bytes
+ * <li>{@code survival}: the fraction of the objects retained across requests
+ * <li>{@code retained}: the size in bytes of the live set of retained objects
+ * <li>{@code report}: the number of events between reports, or 0 for no reports
+ * </ul>
+ */
+public class AllocationPressure implements Engine {
+
+    private static final String NAME = "AllocationPressure";
+
+    private static final long DEFAULT_ALLOCATION = 4L * 1024 * 1024;
+    private static final int DEFAULT_SIZE = 256;
+    private static final String DEFAULT_SIZE_DIST = "fixed";
+    private static final double DEFAULT_SURVIVAL = 0.01;
+    private static final long DEFAULT_RETAINED = 64L * 1024 * 1024;
+    private static final long DEFAULT_REPORT = 10_000;
+
+    // the objects allocated by a request are referenced until it ends
+    private static final int YOUNG_OBJECTS = 1024;
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final double NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private volatile Profile profile;
+    private final NotificationListener gcListener = this::handleGcNotification;
+
+    /**
+     * The allocation settings, the retained objects and the measures.
+     */
+    private static final class Profile {
+
+        private final long allocation;
+        private final int size;
+        private final String sizeDist;
+        private final int spread;
+        private final double survival;
+        private final long reportInterval;
+        private final AtomicReferenceArray<byte[]> retained;
+
+        private final long startTime = System.nanoTime();
+        private final long startGcTime = gcPauseTime();
+        private final long startGcCount = gcPauseCount();
+        private final AtomicLong events = new AtomicLong();
+        private final LongAdder allocated = new LongAdder();
+        private final LatencyHistogram eventTime = new LatencyHistogram();
+        private final LatencyHistogram pauses = new LatencyHistogram();
+        private final LongAdder concurrentTime = new LongAdder();
+
+        Profile(JSONObject data) {
+            allocation = data.optLong("allocation", DEFAULT_ALLOCATION);
+            size = data.optInt("size", DEFAULT_SIZE);
+            sizeDist = data.optString("size_dist", DEFAULT_SIZE_DIST);
+            spread = data.optInt("size_spread", size / 4);
+            survival = data.optDouble("survival", DEFAULT_SURVIVAL);
+            reportInterval = data.optLong("report", DEFAULT_REPORT);
+            long retainedBytes = data.optLong("retained", DEFAULT_RETAINED);
+
+            if (allocation < 0 || size <= 0 || retainedBytes < 0) {
+                throw new IllegalArgumentException("invalid allocation or object size");
+            }
+            if (survival < 0 || survival > 1) {
+                throw new IllegalArgumentException("invalid survival ratio: " + survival);
+            }
+            // check the distribution on configuration, instead of on the first request
+            SyntheticSource.nextSize(new Random(), sizeDist, size, spread);
+
+            long slots = Math.min(retainedBytes / size, Integer.MAX_VALUE - 8);
+            retained = new AtomicReferenceArray<>((int) Math.max(slots, 1));
+        }
+
+        private int nextSize(Random random) {
+            return Math.max(SyntheticSource.nextSize(random, sizeDist, size, spread), 1);
+        }
+    }
+
+
+    public AllocationPressure() {
+        profile = new Profile(new JSONObject());
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                ((NotificationEmitter) gc).addNotificationListener(gcListener, null, null);
+            }
+        }
+    }
+
+
+    @Override
+    public EngineData configure(EngineData input) {
+        String mimeType = input.getMimeType();
+        if (mimeType.equals(EngineDataType.JSON.mimeType())) {
+            JSONObject data = new JSONObject((String) input.getData());
+            try {
+                Profile profile = new Profile(data);
+                System.out.println(NAME + " service config: allocation = " + profile.allocation);
+                System.out.println(NAME + " service config: size = " + profile.size
+                                   + " (" + profile.sizeDist + ")");
+                System.out.println(NAME + " service config: survival = " + profile.survival);
+                System.out.println(NAME + " service config: retained objects = "
+                                   + profile.retained.length());
+                this.profile = profile;
+            } catch (JSONException | IllegalArgumentException e) {
+                System.err.println(NAME + " service config: " + e.getMessage());
+            }
+        } else {
+            System.err.println(NAME + " service config: wrong mime-type = " + mimeType);
+        }
+        return null;
+    }
+
+
+    @Override
+    public EngineData execute(EngineData input) {
+        Profile profile = this.profile;
+        long start = System.nanoTime();
+        allocate(profile);
+        profile.eventTime.record(System.nanoTime() - start);
+
+        long events = profile.events.incrementAndGet();
+        if (profile.reportInterval > 0 && events % profile.reportInterval == 0) {
+            report(profile);
+        }
+        return input;
+    }
+
+
+    private static void allocate(Profile profile) {
+        Random random = ThreadLocalRandom.current();
+        byte[][] young = new byte[YOUNG_OBJECTS][];
+        long remaining = profile.allocation;
+        int count = 0;
+        while (remaining > 0) {
+            byte[] object = new byte[profile.nextSize(random)];
+            object[0] = (byte) count;
+            young[count++ % YOUNG_OBJECTS] = object;
+            if (profile.survival > 0 && random.nextDouble() < profile.survival) {
+                int slot = random.nextInt(profile.retained.length());
+                profile.retained.lazySet(slot, object);
+            }
+            remaining -= object.length;
+        }
+        profile.allocated.add(profile.allocation - remaining);
+    }
+
+
+    /**
+     * Returns the bytes allocated by the requests since the last configuration.
+     *
+     * @return the allocated bytes
+     */
+    long allocatedBytes() {
+        return profile.allocated.sum();
+    }
+
+
+    private void handleGcNotification(Notification notification, Object handback) {
+        String type = notification.getType();
+        if (type.equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+            CompositeData data = (CompositeData) notification.getUserData();
+            GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from(data);
+            long duration = TimeUnit.MILLISECONDS.toNanos(info.getGcInfo().getDuration());
+            if (isConcurrent(info.getGcName(), info.getGcAction())) {
+                profile.concurrentTime.add(duration);
+            } else {
+                profile.pauses.record(duration);
+            }
+        }
+    }
+
+
+    /*
+     * ZGC and Shenandoah report their concurrent cycles with a "Cycles"
+     * collector and the action "end of GC cycle", next to a "Pauses" collector.
+     * CMS reports the concurrent phases as part of its collections.
+     */
+    static boolean isConcurrent(String gcName, String gcAction) {
+        return gcName.contains("Cycles")
+                || gcName.equals("ConcurrentMarkSweep")
+                || gcAction.contains("cycle");
+    }
+
+
+    private static void report(Profile profile) {
+        long events = profile.events.get();
+        double wallTime = System.nanoTime() - profile.startTime;
+        double gcTime = TimeUnit.MILLISECONDS.toNanos(gcPauseTime() - profile.startGcTime);
+        long gcCount = gcPauseCount() - profile.startGcCount;
+        LatencyHistogram eventTime = profile.eventTime;
+        LatencyHistogram pauses = profile.pauses;
+
+        System.out.printf("%s service: events = %d  alloc = %.1f MB/s"
+                          + "  gc pauses = %d (%.1f%% of wall time, %.1f us/event)%n",
+                          NAME, events,
+                          profile.allocated.sum() / BYTES_PER_MB / (wallTime / NANOS_PER_SECOND),
+                          gcCount, 100 * gcTime / wallTime,
+                          events > 0 ? gcTime / events / NANOS_PER_MICRO : 0);
+        System.out.printf("%s service: event us  p50 = %.1f  p99 = %.1f  max = %.1f%n",
+                          NAME,
+                          eventTime.percentile(50) / NANOS_PER_MICRO,
+                          eventTime.percentile(99) / NANOS_PER_MICRO,
+                          eventTime.max() / NANOS_PER_MICRO);
+        System.out.printf("%s service: gc pause us  p50 = %.1f  p99 = %.1f  max = %.1f"
+                          + "  concurrent gc = %.1f ms%n",
+                          NAME,
+                          pauses.percentile(50) / NANOS_PER_MICRO,
+                          pauses.percentile(99) / NANOS_PER_MICRO,
+                          pauses.max() / NANOS_PER_MICRO,
+                          profile.concurrentTime.sum() / NANOS_PER_MILLI);
+    }
+
+
+    private static long gcPauseCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!isConcurrent(gc.getName(), "")) {
+                count += Math.max(gc.getCollectionCount(), 0);
+            }
+        }
+        return count;
+    }
+
+
+    private static long gcPauseTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!isConcurrent(gc.getName(), "")) {
+                time += Math.max(gc.getCollectionTime(), 0);
+            }
+        }
+        return time;
+    }
+
+
+    @Override
+    public EngineData executeGroup(Set<EngineData> inputs) {
+        if (inputs.isEmpty()) {
+            return null;
+        }
+        List<EngineData> outputs = new ArrayList<>(inputs.size());
+        for (EngineData input : inputs) {
+            outputs.add(execute(input));
+        }
+        return outputs.get(0);
+    }
+
+
+    @Override
+    public Set<EngineDataType> getInputDataTypes() {
+        return ClaraUtil.buildDataTypes(Clas12Types.HIPO,
+                                        Clas12Types.EVIO,
+                                        EngineDataType.JSON);
+    }
+
+
+    @Override
+    public Set<EngineDataType> getOutputDataTypes() {
+        return ClaraUtil.buildDataTypes(Clas12Types.HIPO,
+                                        Clas12Types.EVIO);
+    }
+
+
+    @Override
+    public Set<String> getStates() {
+        return null;
+    }
+
+
+    @Override
+    public String getDescription() {
+        return "Allocates objects with a configurable lifetime profile to measure GC impact.";
+    }
+
+
+    @Override
+    public String getVersion() {
+        return "0.1";
+    }
+
+
+    @Override
+    public String getAuthor() {
+        return "smancill";
+    }
+
+
+    @Override
+    public void reset() {
+        profile = new Profile(new JSONObject());
+    }
+
+
+    @Override
+    public void destroy() {
+        report(profile);
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (gc instanceof NotificationEmitter) {
+                try {
+                    ((NotificationEmitter) gc).removeNotificationListener(gcListener);
+                } catch (ListenerNotFoundException e) {
+                    // not registered
+                }
+            }
+        }
+    }
+
+
+    public static void main(String[] args) {
+        Engine engine = new AllocationPressure();
+
+        JSONObject params = new JSONObject();
+        params.put("allocation", 4 * 1024 * 1024);
+        params.put("survival", args.length > 0 ? Double.parseDouble(args[0]) : 0.01);
+        params.put("report", 0);
+
+        EngineData config = new EngineData();
+        config.setData(EngineDataType.JSON, params.toString());
+        engine.configure(config);
+
+        EngineData data = new EngineData();
+        data.setData("test_data");
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 10_000; i++) {
+            engine.execute(data);
+        }
+        long end = System.currentTimeMillis();
+        System.out.printf("Total time: %d ms%n", (end - start));
+
+        engine.destroy();
+    }
+}
@@ -9,9 +9,16 @@ import org.jlab.clas.std.services.util.Clas12Types;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
@@ -19,15 +26,23 @@ public class Benchmark1 implements Engine {
 
     private static final String NAME = "Benchmark1";
 
+    private static final List<String> MODES =
+            Arrays.asList("array", "list", "parallel", "direct");
+
     private static final String DEFAULT_MODE = "array";
     private static final int DEFAULT_SIZE = 200_000;
     private static final int DEFAULT_ITER = 5;
     private static final int DEFAULT_OPS = 500;
+    private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
 
     private volatile String mode = DEFAULT_MODE;
     private volatile int size = DEFAULT_SIZE;
     private volatile int iter = DEFAULT_ITER;
     private volatile int ops = DEFAULT_OPS;
+    private final WorkerPool pool = new WorkerPool(DEFAULT_THREADS);
+
+    // reuse the off-heap buffers, they are only released by the GC
+    private final ThreadLocal<LongBuffer[]> directBuffers = new ThreadLocal<>();
 
 
     @Override
@@ -56,7 +71,12 @@ public class Benchmark1 implements Engine {
                     System.out.println(NAME + "service config: ops = " + ops);
                     this.ops = ops;
                 }
-            } catch (JSONException e) {
+                if (data.has("threads")) {
+                    int threads = data.getInt("threads");
+                    System.out.println(NAME + "service config: threads = " + threads);
+                    pool.setThreads(threads);
+                }
+            } catch (JSONException | IllegalArgumentException e) {
                 System.err.println(NAME + " service config: " + e.getMessage());
             }
         } else {
@@ -70,11 +90,7 @@ public class Benchmark1 implements Engine {
     public EngineData execute(EngineData input) {
         String mode = this.mode;
 
-        if (mode.equals("array")) {
-            runArray();
-        } else if (mode.equals("list")) {
-            runList();
-        } else {
+        if (!run(mode)) {
             EngineData output = new EngineData();
             ServiceUtils.setError(output, "Invalid mode: " + mode);
             return output;
@@ -83,6 +99,26 @@ public class Benchmark1 implements Engine {
     }
 
 
+    private boolean run(String mode) {
+        switch (mode) {
+            case "array":
+                runArray();
+                return true;
+            case "list":
+                runList();
+                return true;
+            case "parallel":
+                runParallel();
+                return true;
+            case "direct":
+                runDirect();
+                return true;
+            default:
+                return false;
+        }
+    }
+
+
     @SuppressFBWarnings(value = "UC_USELESS_VOID_METHOD")
     private void runArray() {
         int size = this.size;
@@ -175,9 +211,161 @@ public class Benchmark1 implements Engine {
     }
 
 
+    /*
+     * Same as runArray, but each pass over the arrays is split
+     * between the threads of the fork-join pool.
+     */
+    private void runParallel() {
+        int size = this.size;
+        int iter = this.iter;
+        int ops = this.ops;
+
+        long[] list1 = new long[size];
+        long[] list2 = new long[size];
+
+        ForkJoinTask<?> task = pool.submit(() -> {
+            IntStream.range(0, size).parallel().forEach(j -> {
+                list1[j] = j;
+                list2[j] = j;
+            });
+
+            int block = size / iter;
+            for (int i = 0; i < iter; i++) {
+                int min = i * block;
+                int max = min + block;
+
+                IntStream.range(0, size).parallel().forEach(j -> {
+                    long oldValue = list1[j];
+                    long newValue = oldValue + list2[j];
+                    if (j >= min && j < max) {
+                        list1[j] = newValue;
+                    }
+                });
+                long sum = IntStream.range(0, size).parallel().mapToLong(j -> list1[j]).sum();
+                long avg = sum / size;
+                IntStream.range(0, size).parallel().forEach(j -> {
+                    long oldValue = list2[j];
+                    long newValue = oldValue + avg;
+                    long update = newValue;
+                    for (int k = 1; k <= ops; k++) {
+                        update += newValue * (k % 10);
+                    }
+                    if (j >= min && j < max) {
+                        list2[j] = update;
+                    }
+                });
+            }
+        });
+        join(task);
+    }
+
+
+    /*
+     * Same as runArray, but with the values stored off-heap.
+     */
+    @SuppressFBWarnings(value = "UC_USELESS_VOID_METHOD")
+    private void runDirect() {
+        int size = this.size;
+        int iter = this.iter;
+        int ops = this.ops;
+
+        LongBuffer[] buffers = getDirectBuffers(size);
+        LongBuffer list1 = buffers[0];
+        LongBuffer list2 = buffers[1];
+
+        for (int j = 0; j < size; j++) {
+            list1.put(j, j);
+            list2.put(j, j);
+        }
+
+        int block = size / iter;
+        for (int i = 0; i < iter; i++) {
+            int min = i * block;
+            int max = min + block;
+
+            for (int j = 0; j < size; j++) {
+                long oldValue = list1.get(j);
+                long newValue = oldValue + list2.get(j);
+                if (j >= min && j < max) {
+                    list1.put(j, newValue);
+                }
+            }
+            long sum = 0;
+            for (int j = 0; j < size; j++) {
+                sum += list1.get(j);
+            }
+            long avg = sum / size;
+            for (int j = 0; j < size; j++) {
+                long oldValue = list2.get(j);
+                long newValue = oldValue + avg;
+                long update = newValue;
+                for (int k = 1; k <= ops; k++) {
+                    update += newValue * (k % 10);
+                }
+                if (j >= min && j < max) {
+                    list2.put(j, update);
+                }
+            }
+        }
+    }
+
+
+    private LongBuffer[] getDirectBuffers(int size) {
+        LongBuffer[] buffers = directBuffers.get();
+        if (buffers == null || buffers[0].capacity() != size) {
+            buffers = new LongBuffer[] {newDirectBuffer(size), newDirectBuffer(size)};
+            directBuffers.set(buffers);
+        }
+        return buffers;
+    }
+
+
+    private static LongBuffer newDirectBuffer(int size) {
+        return ByteBuffer.allocateDirect(size * Long.BYTES)
+                         .order(ByteOrder.nativeOrder())
+                         .asLongBuffer();
+    }
+
+
+    private static void join(ForkJoinTask<?> task) {
+        try {
+            task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+
+    /*
+     * Runs the configured mode once for each input, all of them at the same
+     * time on the fork-join pool, to load all the cores with a single request.
+     */
     @Override
     public EngineData executeGroup(Set<EngineData> inputs) {
-        return null;
+        String mode = this.mode;
+
+        if (!MODES.contains(mode)) {
+            EngineData output = new EngineData();
+            ServiceUtils.setError(output, "Invalid mode: " + mode);
+            return output;
+        }
+        if (inputs.isEmpty()) {
+            return null;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            tasks.add(pool.submit(() -> {
+                run(mode);
+            }));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            join(task);
+        }
+        return inputs.iterator().next();
     }
 
 
@@ -226,11 +414,12 @@ public class Benchmark1 implements Engine {
         size = DEFAULT_SIZE;
         iter = DEFAULT_ITER;
         ops = DEFAULT_OPS;
+        pool.setThreads(DEFAULT_THREADS);
     }
 
     @Override
     public void destroy() {
-        // nothing
+        pool.shutdown();
     }
 
 
@@ -238,7 +427,7 @@ public class Benchmark1 implements Engine {
         Engine engine = new Benchmark1();
 
         JSONObject params = new JSONObject();
-        params.put("mode", "array");
+        params.put("mode", args.length > 0 ? args[0] : "array");
         params.put("size", 200_000);
         params.put("iter", 3);
         params.put("ops", 250);
@@ -253,5 +442,7 @@ public class Benchmark1 implements Engine {
         engine.execute(data);
         long end = System.currentTimeMillis();
         System.out.printf("Total time: %d ms%n", (end - start));
+
+        engine.destroy();
     }
 }
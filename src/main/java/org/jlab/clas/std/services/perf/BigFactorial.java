@@ -1,7 +1,11 @@
 package org.jlab.clas.std.services.perf;
 
 import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 
 import org.jlab.clara.base.ClaraUtil;
 import org.jlab.clara.engine.Engine;
@@ -15,8 +19,14 @@ public class BigFactorial implements Engine {
 
     private static final String NAME = "BigFactorial";
     private static final int DEFAULT_N = 6000;
+    private static final String DEFAULT_MODE = "linear";
+    private static final int DEFAULT_LEAF = 128;
+    private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
 
     private volatile int factorial = DEFAULT_N;
+    private volatile String mode = DEFAULT_MODE;
+    private volatile int leaf = DEFAULT_LEAF;
+    private final WorkerPool pool = new WorkerPool(DEFAULT_THREADS);
 
     @Override
     public EngineData configure(EngineData input) {
@@ -35,24 +45,133 @@ public class BigFactorial implements Engine {
             } else {
                 System.err.println(NAME + " service: missing factorial configuration");
             }
+            configureMode(data);
         } else {
             System.err.println(NAME + " service: wrong configuration mime-type = " + mimeType);
         }
         return null;
     }
 
+    private void configureMode(JSONObject data) {
+        try {
+            if (data.has("mode")) {
+                String mode = data.getString("mode");
+                if (!mode.equals("linear") && !mode.equals("tree") && !mode.equals("parallel")) {
+                    throw new IllegalArgumentException("invalid mode = " + mode);
+                }
+                System.out.println(NAME + " service: mode set to = " + mode);
+                this.mode = mode;
+            }
+            if (data.has("leaf")) {
+                int leaf = data.getInt("leaf");
+                if (leaf < 1) {
+                    throw new IllegalArgumentException("invalid leaf size = " + leaf);
+                }
+                System.out.println(NAME + " service: leaf size set to = " + leaf);
+                this.leaf = leaf;
+            }
+            if (data.has("threads")) {
+                int threads = data.getInt("threads");
+                System.out.println(NAME + " service: threads set to = " + threads);
+                pool.setThreads(threads);
+            }
+        } catch (JSONException | IllegalArgumentException e) {
+            System.err.println(NAME + " service: wrong configuration: " + e.getMessage());
+        }
+    }
+
     @Override
     public EngineData execute(EngineData input) {
+        compute(factorial, mode);
+        return input;
+    }
+
+    BigInteger compute(int n, String mode) {
+        switch (mode) {
+            case "tree":
+                return product(1, n, leaf);
+            case "parallel":
+                return pool.invoke(new ProductTask(1, n, leaf));
+            default:
+                return linear(n);
+        }
+    }
+
+    private static BigInteger linear(int n) {
         BigInteger fact = BigInteger.valueOf(1);
-        for (int i = 1; i <= factorial; i++) {
+        for (int i = 1; i <= n; i++) {
             fact = fact.multiply(BigInteger.valueOf(i));
         }
-        return input;
+        return fact;
+    }
+
+    /*
+     * Multiplies the numbers in [lo, hi] as a balanced binary tree,
+     * so the operands of each multiplication have about the same size.
+     */
+    private static BigInteger product(int lo, int hi, int leaf) {
+        if (hi - lo < leaf) {
+            BigInteger prod = BigInteger.ONE;
+            for (int i = lo; i <= hi; i++) {
+                prod = prod.multiply(BigInteger.valueOf(i));
+            }
+            return prod;
+        }
+        int mid = (lo + hi) >>> 1;
+        return product(lo, mid, leaf).multiply(product(mid + 1, hi, leaf));
+    }
+
+    /*
+     * The product tree, with the subtrees computed in parallel.
+     */
+    private static final class ProductTask extends RecursiveTask<BigInteger> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int lo;
+        private final int hi;
+        private final int leaf;
+
+        ProductTask(int lo, int hi, int leaf) {
+            this.lo = lo;
+            this.hi = hi;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected BigInteger compute() {
+            if (hi - lo < leaf) {
+                return product(lo, hi, leaf);
+            }
+            int mid = (lo + hi) >>> 1;
+            ProductTask left = new ProductTask(lo, mid, leaf);
+            ProductTask right = new ProductTask(mid + 1, hi, leaf);
+            left.fork();
+            BigInteger rightProd = right.compute();
+            return left.join().multiply(rightProd);
+        }
     }
 
+    /*
+     * Computes the factorial once for each input, all of them at the same
+     * time on the fork-join pool (inter-event parallelism).
+     * In parallel mode each factorial is also split (intra-event parallelism).
+     */
     @Override
     public EngineData executeGroup(Set<EngineData> inputs) {
-        return null;
+        if (inputs.isEmpty()) {
+            return null;
+        }
+        int n = factorial;
+        String mode = this.mode;
+        List<ForkJoinTask<BigInteger>> tasks = new ArrayList<>(inputs.size());
+        for (int i = 0; i < inputs.size(); i++) {
+            tasks.add(pool.submit(() -> compute(n, mode)));
+        }
+        for (ForkJoinTask<BigInteger> task : tasks) {
+            task.join();
+        }
+        return inputs.iterator().next();
     }
 
     @Override
@@ -90,10 +209,13 @@ public class BigFactorial implements Engine {
     @Override
     public void reset() {
         factorial = DEFAULT_N;
+        mode = DEFAULT_MODE;
+        leaf = DEFAULT_LEAF;
+        pool.setThreads(DEFAULT_THREADS);
     }
 
     @Override
     public void destroy() {
-        // nothing
+        pool.shutdown();
     }
 }
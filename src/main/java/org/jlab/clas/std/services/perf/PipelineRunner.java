@@ -0,0 +1,478 @@
+package org.jlab.clas.std.services.perf;
+
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jlab.clara.base.error.ClaraException;
+import org.jlab.clara.engine.ClaraSerializer;
+import org.jlab.clara.engine.Engine;
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clara.engine.EngineStatus;
+import org.jlab.clas.std.services.util.LatencyHistogram;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Runs a chain of services in a single JVM, to measure how the chain scales
+ * with the number of threads without deploying CLARA.
+ * <p>
+ * The chain is a reader service, any number of engines, and an optional
+ * writer service. Each worker thread requests an event from the reader and
+ * passes it through the engines and the writer, like the services of a DPE
+ * do. The chain is run once for each number of threads, and the events/s,
+ * the latency percentiles of the whole chain, the allocation rate of the
+ * worker threads and the GC time are printed for each run.
+ * <p>
+ * Configuration (a JSON file, given as the only argument):
+ * <ul>
+ * <li>{@code reader}: the {@code class}, input {@code file} and
+ *     {@code options} of the reader service
+ * <li>{@code engines}: a list with the {@code class} and {@code options}
+ *     of each engine
+ * <li>{@code writer}: the {@code class}, output {@code file} and
+ *     {@code options} of the writer service (optional, the events are
+ *     discarded without it). Each run writes its own file, with the number
+ *     of threads added to the name (e.g. {@code out_t4.evio})
+ * <li>{@code threads}: the list of thread counts
+ *     (default: the powers of two up to the number of cores)
+ * <li>{@code events}: the number of events measured on each run
+ *     (the input file is read again from the start if it has less events)
+ * <li>{@code warmup}: the number of events run before the measure
+ * <li>{@code serialize}: set {@code true} to serialize the events between
+ *     the services, like services in different DPEs do
+ * <li>{@code report}: a file to save the results as JSON
+ * </ul>
+ */
+public final class PipelineRunner {
+
+    private static final String NAME = "PipelineRunner";
+
+    private static final int DEFAULT_EVENTS = 10_000;
+    private static final int DEFAULT_WARMUP = 1_000;
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private static final ThreadMXBean THREAD_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final Stage reader;
+    private final List<Stage> engines;
+    private final Stage writer;
+    private final List<Stage> stages;
+    private final boolean serialize;
+
+    private int eventCount;
+
+    /**
+     * A service of the chain.
+     */
+    private static final class Stage {
+
+        private final Engine engine;
+        private final String file;
+        private final JSONObject options;
+
+        Stage(JSONObject config) throws ReflectiveOperationException {
+            String className = config.getString("class");
+            this.engine = Class.forName(className)
+                               .asSubclass(Engine.class)
+                               .getConstructor()
+                               .newInstance();
+            this.file = config.optString("file", null);
+            this.options = config.optJSONObject("options");
+        }
+
+        void configure() {
+            configure(options != null ? options : new JSONObject());
+        }
+
+        void configure(JSONObject config) {
+            EngineData input = new EngineData();
+            input.setData(EngineDataType.JSON.mimeType(), config.toString());
+            EngineData output = engine.configure(input);
+            if (isError(output)) {
+                throw new IllegalStateException(output.getDescription());
+            }
+        }
+
+        void open(String path) {
+            JSONObject config = new JSONObject(options != null ? options.toString() : "{}");
+            config.put("action", "open");
+            config.put("file", path);
+            configure(config);
+        }
+
+        void close() {
+            JSONObject config = new JSONObject();
+            config.put("action", "close");
+            configure(config);
+        }
+
+        EngineData execute(EngineData input) {
+            return engine.execute(input);
+        }
+    }
+
+    /**
+     * The measures of a run.
+     */
+    private static final class Result {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder allocated = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final AtomicReference<String> firstError = new AtomicReference<>();
+    }
+
+
+    PipelineRunner(JSONObject config) throws ReflectiveOperationException {
+        this.reader = new Stage(config.getJSONObject("reader"));
+        this.engines = new ArrayList<>();
+        JSONArray engineArray = config.optJSONArray("engines");
+        if (engineArray != null) {
+            for (int i = 0; i < engineArray.length(); i++) {
+                engines.add(new Stage(engineArray.getJSONObject(i)));
+            }
+        }
+        JSONObject writerConfig = config.optJSONObject("writer");
+        this.writer = writerConfig != null ? new Stage(writerConfig) : null;
+        this.stages = new ArrayList<>(engines);
+        if (writer != null) {
+            stages.add(writer);
+        }
+        this.serialize = config.optBoolean("serialize", false);
+
+        if (reader.file == null) {
+            throw new JSONException("missing reader file");
+        }
+        if (writer != null && writer.file == null) {
+            throw new JSONException("missing writer file");
+        }
+    }
+
+
+    void start() {
+        for (Stage engine : engines) {
+            engine.configure();
+        }
+    }
+
+
+    JSONObject run(int threads, int warmup, int events) throws InterruptedException {
+        reader.open(reader.file);
+        eventCount = readEventCount();
+        if (writer != null) {
+            writer.open(outputFile(writer.file, threads));
+        }
+        try {
+            runEvents(threads, warmup, new Result());
+
+            Result result = new Result();
+            long gcCount = gcCount();
+            long gcTime = gcTime();
+            long start = System.nanoTime();
+            runEvents(threads, events, result);
+            long elapsed = System.nanoTime() - start;
+            gcCount = gcCount() - gcCount;
+            gcTime = gcTime() - gcTime;
+
+            if (result.firstError.get() != null) {
+                System.err.printf("%s: %d errors, first: %s%n",
+                                  NAME, result.errors.sum(), result.firstError.get());
+            }
+            return report(threads, result, elapsed, gcCount, gcTime);
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+            reader.close();
+        }
+    }
+
+
+    private int readEventCount() {
+        EngineData request = new EngineData();
+        request.setData(EngineDataType.STRING, "count");
+        EngineData output = reader.execute(request);
+        if (isError(output)) {
+            throw new IllegalStateException(output.getDescription());
+        }
+        int count = (Integer) output.getData();
+        if (count <= 0) {
+            throw new IllegalStateException("empty input file: " + reader.file);
+        }
+        return count;
+    }
+
+
+    private void runEvents(int threads, long events, Result result)
+            throws InterruptedException {
+        AtomicLong next = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int i = 0; i < threads; i++) {
+                workers.add(pool.submit(() -> work(next, events, result)));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+
+    private void work(AtomicLong next, long events, Result result) {
+        long allocated = allocatedBytes();
+        while (true) {
+            long event = next.getAndIncrement();
+            if (event >= events) {
+                break;
+            }
+            long start = System.nanoTime();
+            String error = process((int) (event % eventCount));
+            if (error == null) {
+                result.latency.record(System.nanoTime() - start);
+            } else {
+                result.errors.increment();
+                result.firstError.compareAndSet(null, error);
+            }
+        }
+        result.allocated.add(allocatedBytes() - allocated);
+    }
+
+
+    private String process(int eventNumber) {
+        EngineData request = new EngineData();
+        request.setData(EngineDataType.SINT32, eventNumber);
+        EngineData data = reader.execute(request);
+        if (isError(data)) {
+            return data.getDescription();
+        }
+        Stage source = reader;
+        for (Stage stage : stages) {
+            EngineData output;
+            try {
+                output = stage.execute(transfer(data, source, stage));
+            } catch (ClaraException | RuntimeException e) {
+                return e.toString();
+            }
+            if (isError(output)) {
+                return output.getDescription();
+            }
+            if (output != null) {
+                data = output;
+            }
+            source = stage;
+        }
+        return null;
+    }
+
+
+    /*
+     * Serializes the data with the output type of the source service,
+     * and deserializes it with the input type of the destination service.
+     */
+    private EngineData transfer(EngineData data, Stage source, Stage destination)
+            throws ClaraException {
+        if (!serialize) {
+            return data;
+        }
+        String mimeType = data.getMimeType();
+        ClaraSerializer writeSerializer =
+                serializer(source.engine.getOutputDataTypes(), mimeType);
+        ClaraSerializer readSerializer =
+                serializer(destination.engine.getInputDataTypes(), mimeType);
+        ByteBuffer buffer = writeSerializer.write(data.getData());
+        EngineData output = new EngineData();
+        output.setData(mimeType, readSerializer.read(buffer));
+        output.setCommunicationId(data.getCommunicationId());
+        return output;
+    }
+
+
+    private static ClaraSerializer serializer(Set<EngineDataType> types, String mimeType)
+            throws ClaraException {
+        for (EngineDataType type : types) {
+            if (type.mimeType().equals(mimeType) && type.serializer() != null) {
+                return type.serializer();
+            }
+        }
+        throw new ClaraException("unsupported mime-type: " + mimeType);
+    }
+
+
+    private static boolean isError(EngineData data) {
+        return data != null && data.getStatus() == EngineStatus.ERROR;
+    }
+
+
+    static String outputFile(String file, int threads) {
+        int dot = file.lastIndexOf('.');
+        int slash = file.lastIndexOf('/');
+        if (dot > slash + 1) {
+            return file.substring(0, dot) + "_t" + threads + file.substring(dot);
+        }
+        return file + "_t" + threads;
+    }
+
+
+    // only the HotSpot JVM reports the allocated bytes of each thread
+    private static long allocatedBytes() {
+        if (THREAD_BEAN instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) THREAD_BEAN;
+            return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+
+    private static long gcCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(gc.getCollectionCount(), 0);
+        }
+        return count;
+    }
+
+
+    private static long gcTime() {
+        long time = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            time += Math.max(gc.getCollectionTime(), 0);
+        }
+        return time;
+    }
+
+
+    private static JSONObject report(int threads, Result result, long elapsed,
+                                     long gcCount, long gcTime) {
+        double seconds = elapsed / NANOS_PER_SECOND;
+        LatencyHistogram latency = result.latency;
+        JSONObject json = new JSONObject();
+        json.put("threads", threads);
+        json.put("events", latency.count());
+        json.put("errors", result.errors.sum());
+        json.put("elapsed_s", seconds);
+        json.put("events_per_s", latency.count() / seconds);
+        json.put("mean_us", latency.mean() / NANOS_PER_MICRO);
+        json.put("p50_us", latency.percentile(50) / NANOS_PER_MICRO);
+        json.put("p90_us", latency.percentile(90) / NANOS_PER_MICRO);
+        json.put("p99_us", latency.percentile(99) / NANOS_PER_MICRO);
+        json.put("max_us", latency.max() / NANOS_PER_MICRO);
+        json.put("alloc_mb_per_s", result.allocated.sum() / BYTES_PER_MB / seconds);
+        json.put("gc_count", gcCount);
+        json.put("gc_ms", gcTime);
+        return json;
+    }
+
+
+    private static void printHeader() {
+        System.out.printf("%7s %12s %10s %10s %10s %10s %12s %8s %8s%n",
+                          "threads", "events/s", "mean us", "p50 us", "p90 us", "p99 us",
+                          "alloc MB/s", "gc", "gc ms");
+    }
+
+
+    private static void printResult(JSONObject result) {
+        System.out.printf("%7d %12.1f %10.1f %10.1f %10.1f %10.1f %12.1f %8d %8d%n",
+                          result.getInt("threads"),
+                          result.getDouble("events_per_s"),
+                          result.getDouble("mean_us"),
+                          result.getDouble("p50_us"),
+                          result.getDouble("p90_us"),
+                          result.getDouble("p99_us"),
+                          result.getDouble("alloc_mb_per_s"),
+                          result.getLong("gc_count"),
+                          result.getLong("gc_ms"));
+    }
+
+
+    static List<Integer> threadCounts(JSONObject config) {
+        List<Integer> counts = new ArrayList<>();
+        JSONArray array = config.optJSONArray("threads");
+        if (array != null) {
+            for (int i = 0; i < array.length(); i++) {
+                counts.add(Math.max(array.getInt(i), 1));
+            }
+        } else {
+            int cores = Runtime.getRuntime().availableProcessors();
+            for (int threads = 1; threads < cores; threads *= 2) {
+                counts.add(threads);
+            }
+            counts.add(cores);
+        }
+        return counts;
+    }
+
+
+    void destroy() {
+        reader.engine.destroy();
+        for (Stage engine : engines) {
+            engine.engine.destroy();
+        }
+        if (writer != null) {
+            writer.engine.destroy();
+        }
+    }
+
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("usage: " + NAME + " <config.json>");
+            return;
+        }
+        JSONObject config = readConfig(Paths.get(args[0]));
+        int events = config.optInt("events", DEFAULT_EVENTS);
+        int warmup = config.optInt("warmup", DEFAULT_WARMUP);
+
+        PipelineRunner runner = new PipelineRunner(config);
+        JSONArray results = new JSONArray();
+        try {
+            runner.start();
+            printHeader();
+            for (int threads : threadCounts(config)) {
+                JSONObject result = runner.run(threads, warmup, events);
+                printResult(result);
+                results.put(result);
+            }
+        } finally {
+            runner.destroy();
+        }
+
+        if (config.has("report")) {
+            Path report = Paths.get(config.getString("report"));
+            Files.write(report, results.toString(2).getBytes(StandardCharsets.UTF_8));
+            System.out.printf("Results saved in %s%n", report);
+        }
+    }
+
+
+    private static JSONObject readConfig(Path file) throws IOException {
+        return new JSONObject(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,613 @@
+package org.jlab.clas.std.services.perf;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jlab.clara.base.ClaraUtil;
+import org.jlab.clara.engine.Engine;
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clara.std.services.ServiceUtils;
+import org.jlab.clas.std.services.util.Clas12Types;
+import org.jlab.clas.std.services.util.LatencyHistogram;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Replays the disk access patterns of the reader and writer services on a
+ * scratch file, to choose the I/O modes and buffer sizes of each filesystem.
+ * <p>
+ * Each request runs one operation of the configured pattern:
+ * <ul>
+ * <li>{@code sequential}: reads the next block of the file, like the readers
+ *     load the records of the input file
+ * <li>{@code random}: reads an event at a random position, like the readers
+ *     seek to the requested events of an indexed file
+ * <li>{@code append}: appends an event, like the writers. The events are
+ *     collected in a block buffer, and the block is written when it is full.
+ *     The bytes are counted when they are written, and the partial blocks
+ *     are written when the workload is closed
+ * </ul>
+ * with one of the I/O modes:
+ * <ul>
+ * <li>{@code stream}: {@code java.io} streams (and a random access file for
+ *     the seeks). The requests are serialized
+ * <li>{@code channel}: positional reads and writes of a file channel,
+ *     with heap buffers
+ * <li>{@code direct}: the same, with direct buffers
+ * <li>{@code mapped}: copies from and to the file mapped in memory
+ * </ul>
+ * The MB/s, operations/s and latency percentiles of the requests are printed
+ * every {@code report} requests, and when the service is configured again
+ * or destroyed.
+ * <p>
+ * The file read by the {@code sequential} and {@code random} patterns is
+ * created if it does not exist or has a different size, and it is kept for
+ * the next runs. The reads are served from the page cache when the file fits
+ * in memory, so use a file larger than the memory of the node (or drop the
+ * caches between runs) to measure the disk.
+ * <p>
+ * Configuration (JSON):
+ * <ul>
+ * <li>{@code dir}: the scratch directory (default: the temporary directory)
+ * <li>{@code pattern}: {@code sequential} (default), {@code random} or {@code append}
+ * <li>{@code mode}: {@code stream}, {@code channel} (default), {@code direct}
+ *     or {@code mapped}
+ * <li>{@code file_size}: the size of the scratch file in bytes. The appends
+ *     start again from the beginning of the file when it is full
+ * <li>{@code block_size}: the size of the blocks read or written
+ *     (i.e. the record or buffer size of the services)
+ * <li>{@code event_size}: the size of the events read or appended
+ * <li>{@code sync}: set {@code true} to sync each written block to disk
+ *     (with {@code mapped}, only the mapped segments that contain the block)
+ * <li>{@code report}: the number of requests between reports, or 0 for no reports
+ * </ul>
+ */
+public class StorageBenchmark implements Engine {
+
+    private static final String NAME = "StorageBenchmark";
+
+    private static final List<String> PATTERNS =
+            Arrays.asList("sequential", "random", "append");
+
+    private static final List<String> MODES =
+            Arrays.asList("stream", "channel", "direct", "mapped");
+
+    private static final String DEFAULT_PATTERN = "sequential";
+    private static final String DEFAULT_MODE = "channel";
+    private static final long DEFAULT_FILE_SIZE = 1L << 30;
+    private static final int DEFAULT_BLOCK_SIZE = 1_000_000;
+    private static final int DEFAULT_EVENT_SIZE = 16 * 1024;
+    private static final long DEFAULT_REPORT = 10_000;
+
+    private static final String INPUT_FILE = "storage-benchmark.dat";
+    private static final String OUTPUT_FILE = "storage-benchmark.out";
+
+    private static final long SEGMENT_SIZE = 256L * 1024 * 1024;
+    private static final int FILL_SIZE = 1024 * 1024;
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private volatile Workload workload;
+
+    /**
+     * The open scratch file and the measures of the configured pattern.
+     */
+    private static final class Workload implements Closeable {
+
+        private final String pattern;
+        private final String mode;
+        private final Path file;
+        private final long fileSize;
+        private final int blockSize;
+        private final int eventSize;
+        private final boolean sync;
+        private final long reportInterval;
+
+        private final FileChannel channel;
+        private final List<MappedByteBuffer> segments = new ArrayList<>();
+        private final AtomicLong next = new AtomicLong();
+        private final ThreadLocal<ByteBuffer> buffers;
+        private final ThreadLocal<ByteBuffer> blocks;
+        private final Queue<ByteBuffer> allBlocks = new ConcurrentLinkedQueue<>();
+
+        // the streams are only used with the lock of the workload
+        private DataInputStream inputStream;
+        private RandomAccessFile randomFile;
+        private FileOutputStream fileStream;
+        private OutputStream outputStream;
+        private long streamBytes;
+
+        private final long startTime = System.nanoTime();
+        private final AtomicLong operations = new AtomicLong();
+        private final LongAdder bytes = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        Workload(JSONObject data) throws IOException {
+            pattern = data.optString("pattern", DEFAULT_PATTERN);
+            mode = data.optString("mode", DEFAULT_MODE);
+            fileSize = data.optLong("file_size", DEFAULT_FILE_SIZE);
+            blockSize = data.optInt("block_size", DEFAULT_BLOCK_SIZE);
+            eventSize = data.optInt("event_size", DEFAULT_EVENT_SIZE);
+            sync = data.optBoolean("sync", false);
+            reportInterval = data.optLong("report", DEFAULT_REPORT);
+
+            if (!PATTERNS.contains(pattern)) {
+                throw new IllegalArgumentException("invalid pattern: " + pattern);
+            }
+            if (!MODES.contains(mode)) {
+                throw new IllegalArgumentException("invalid mode: " + mode);
+            }
+            if (eventSize <= 0 || blockSize < eventSize || fileSize < blockSize) {
+                throw new IllegalArgumentException("invalid sizes: the event must fit in "
+                        + "the block, and the block in the file");
+            }
+
+            Path dir = Paths.get(data.optString("dir", System.getProperty("java.io.tmpdir")));
+            boolean append = pattern.equals("append");
+            file = dir.resolve(append ? OUTPUT_FILE : INPUT_FILE);
+            if (!append) {
+                createInputFile(file, fileSize);
+            }
+
+            boolean direct = mode.equals("direct");
+            int bufferSize = Math.max(blockSize, eventSize);
+            buffers = ThreadLocal.withInitial(() -> newBuffer(bufferSize, direct));
+            blocks = ThreadLocal.withInitial(() -> {
+                ByteBuffer block = direct
+                        ? ByteBuffer.allocateDirect(blockSize)
+                        : ByteBuffer.allocate(blockSize);
+                allBlocks.add(block);
+                return block;
+            });
+
+            if (mode.equals("stream")) {
+                channel = null;
+                openStreams();
+            } else if (append) {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                           StandardOpenOption.TRUNCATE_EXISTING,
+                                           StandardOpenOption.READ,
+                                           StandardOpenOption.WRITE);
+            } else {
+                channel = FileChannel.open(file, StandardOpenOption.READ);
+            }
+            if (mode.equals("mapped")) {
+                FileChannel.MapMode mapMode = append
+                        ? FileChannel.MapMode.READ_WRITE
+                        : FileChannel.MapMode.READ_ONLY;
+                for (long position = 0; position < fileSize; position += SEGMENT_SIZE) {
+                    long length = Math.min(SEGMENT_SIZE, fileSize - position);
+                    segments.add(channel.map(mapMode, position, length));
+                }
+            }
+        }
+
+        private void openStreams() throws IOException {
+            switch (pattern) {
+                case "sequential":
+                    inputStream = new DataInputStream(new FileInputStream(file.toFile()));
+                    break;
+                case "random":
+                    randomFile = new RandomAccessFile(file.toFile(), "r");
+                    break;
+                default:
+                    fileStream = new FileOutputStream(file.toFile());
+                    outputStream = new BufferedOutputStream(fileStream, blockSize);
+                    streamBytes = 0;
+                    break;
+            }
+        }
+
+        void run() throws IOException {
+            long start = System.nanoTime();
+            int size;
+            switch (pattern) {
+                case "sequential":
+                    size = readSequential();
+                    break;
+                case "random":
+                    size = readRandom();
+                    break;
+                default:
+                    size = append();
+                    break;
+            }
+            latency.record(System.nanoTime() - start);
+            bytes.add(size);
+        }
+
+        private int readSequential() throws IOException {
+            if (inputStream != null) {
+                synchronized (this) {
+                    try {
+                        inputStream.readFully(buffers.get().array(), 0, blockSize);
+                    } catch (EOFException e) {
+                        inputStream.close();
+                        openStreams();
+                        inputStream.readFully(buffers.get().array(), 0, blockSize);
+                    }
+                }
+            } else {
+                read(nextBlock(), blockSize);
+            }
+            return blockSize;
+        }
+
+        private int readRandom() throws IOException {
+            long position = ThreadLocalRandom.current().nextLong(fileSize / eventSize) * eventSize;
+            if (randomFile != null) {
+                synchronized (this) {
+                    randomFile.seek(position);
+                    randomFile.readFully(buffers.get().array(), 0, eventSize);
+                }
+            } else {
+                read(position, eventSize);
+            }
+            return eventSize;
+        }
+
+        private int append() throws IOException {
+            if (outputStream != null) {
+                synchronized (this) {
+                    outputStream.write(buffers.get().array(), 0, eventSize);
+                    long blocks = streamBytes / blockSize;
+                    streamBytes += eventSize;
+                    if (sync && streamBytes / blockSize > blocks) {
+                        outputStream.flush();
+                        fileStream.getFD().sync();
+                    }
+                    if (streamBytes >= fileSize) {
+                        outputStream.close();
+                        openStreams();
+                    }
+                }
+                return eventSize;
+            }
+            ByteBuffer event = buffers.get();
+            event.clear().limit(eventSize);
+            ByteBuffer block = blocks.get();
+            // the block is only locked by its thread, or by close
+            synchronized (block) {
+                int written = 0;
+                if (block.remaining() < eventSize) {
+                    written = flush(block);
+                }
+                block.put(event);
+                return written;
+            }
+        }
+
+        private int flush(ByteBuffer block) throws IOException {
+            if (block.position() == 0) {
+                return 0;
+            }
+            block.flip();
+            int length = block.remaining();
+            write(nextBlock(), block);
+            block.clear();
+            return length;
+        }
+
+        // the blocks are shared by all threads, and wrap at the end of the file
+        private long nextBlock() {
+            return next.getAndAdd(blockSize) % (fileSize - fileSize % blockSize);
+        }
+
+        private void read(long position, int length) throws IOException {
+            ByteBuffer buffer = buffers.get();
+            buffer.clear().limit(length);
+            if (!segments.isEmpty()) {
+                copy(position, buffer, false);
+                return;
+            }
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new EOFException(file.toString());
+                }
+            }
+        }
+
+        private void write(long position, ByteBuffer block) throws IOException {
+            if (!segments.isEmpty()) {
+                int length = block.remaining();
+                copy(position, block, true);
+                if (sync) {
+                    // only the segments with the block (force of a range needs Java 13)
+                    int first = (int) (position / SEGMENT_SIZE);
+                    int last = (int) ((position + length - 1) / SEGMENT_SIZE);
+                    for (int i = first; i <= last; i++) {
+                        segments.get(i).force();
+                    }
+                }
+                return;
+            }
+            while (block.hasRemaining()) {
+                channel.write(block, position + block.position());
+            }
+            if (sync) {
+                channel.force(false);
+            }
+        }
+
+        private void copy(long position, ByteBuffer buffer, boolean toFile) {
+            long offset = position - buffer.position();
+            while (buffer.hasRemaining()) {
+                long filePosition = offset + buffer.position();
+                ByteBuffer segment = segments.get((int) (filePosition / SEGMENT_SIZE)).duplicate();
+                int segmentOffset = (int) (filePosition % SEGMENT_SIZE);
+                int length = Math.min(buffer.remaining(), segment.capacity() - segmentOffset);
+                segment.position(segmentOffset).limit(segmentOffset + length);
+                if (toFile) {
+                    ByteBuffer source = buffer.duplicate();
+                    source.limit(source.position() + length);
+                    segment.put(source);
+                    buffer.position(buffer.position() + length);
+                } else {
+                    buffer.put(segment);
+                }
+            }
+        }
+
+        @Override
+        public synchronized void close() throws IOException {
+            try {
+                for (ByteBuffer block : allBlocks) {
+                    synchronized (block) {
+                        bytes.add(flush(block));
+                    }
+                }
+            } finally {
+                closeFiles();
+            }
+        }
+
+        private void closeFiles() throws IOException {
+            if (inputStream != null) {
+                inputStream.close();
+            }
+            if (randomFile != null) {
+                randomFile.close();
+            }
+            if (outputStream != null) {
+                outputStream.close();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+            // the mapping is released when the segments are garbage collected
+            segments.clear();
+        }
+    }
+
+
+    private static ByteBuffer newBuffer(int size, boolean direct) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        // random data, so the filesystem cannot compress or deduplicate it
+        byte[] data = new byte[size];
+        ThreadLocalRandom.current().nextBytes(data);
+        buffer.put(data);
+        buffer.flip();
+        return buffer;
+    }
+
+
+    private static void createInputFile(Path file, long size) throws IOException {
+        if (Files.exists(file) && Files.size(file) == size) {
+            return;
+        }
+        System.out.printf("%s service: creating %s (%d bytes)%n", NAME, file, size);
+        ByteBuffer data = newBuffer(FILL_SIZE, false);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING,
+                                                    StandardOpenOption.WRITE)) {
+            for (long position = 0; position < size; position += FILL_SIZE) {
+                data.clear().limit((int) Math.min(FILL_SIZE, size - position));
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+            channel.force(true);
+        }
+    }
+
+
+    @Override
+    public EngineData configure(EngineData input) {
+        String mimeType = input.getMimeType();
+        if (mimeType.equals(EngineDataType.JSON.mimeType())) {
+            JSONObject data = new JSONObject((String) input.getData());
+            try {
+                // the append pattern of both workloads writes the same file
+                closeWorkload();
+                Workload workload = new Workload(data);
+                System.out.println(NAME + " service config: pattern = " + workload.pattern);
+                System.out.println(NAME + " service config: mode = " + workload.mode);
+                System.out.println(NAME + " service config: file = " + workload.file);
+                System.out.println(NAME + " service config: block size = "
+                                   + workload.blockSize);
+                System.out.println(NAME + " service config: event size = "
+                                   + workload.eventSize);
+                this.workload = workload;
+            } catch (JSONException | IllegalArgumentException | IOException e) {
+                System.err.println(NAME + " service config: " + e.getMessage());
+            }
+        } else {
+            System.err.println(NAME + " service config: wrong mime-type = " + mimeType);
+        }
+        return null;
+    }
+
+
+    @Override
+    public EngineData execute(EngineData input) {
+        Workload workload = this.workload;
+        if (workload == null) {
+            EngineData output = new EngineData();
+            ServiceUtils.setError(output, "Not configured");
+            return output;
+        }
+        try {
+            workload.run();
+        } catch (IOException e) {
+            EngineData output = new EngineData();
+            ServiceUtils.setError(output, "I/O error: " + e.getMessage());
+            return output;
+        }
+        long operations = workload.operations.incrementAndGet();
+        if (workload.reportInterval > 0 && operations % workload.reportInterval == 0) {
+            report(workload);
+        }
+        return input;
+    }
+
+
+    private static void report(Workload workload) {
+        double seconds = (System.nanoTime() - workload.startTime) / NANOS_PER_SECOND;
+        LatencyHistogram latency = workload.latency;
+        System.out.printf("%s service: %s %s  ops = %d  %.1f MB/s  %.0f ops/s"
+                          + "  latency us p50 = %.1f  p99 = %.1f  max = %.1f%n",
+                          NAME, workload.pattern, workload.mode,
+                          workload.operations.get(),
+                          workload.bytes.sum() / BYTES_PER_MB / seconds,
+                          workload.operations.get() / seconds,
+                          latency.percentile(50) / NANOS_PER_MICRO,
+                          latency.percentile(99) / NANOS_PER_MICRO,
+                          latency.max() / NANOS_PER_MICRO);
+    }
+
+
+    private void closeWorkload() {
+        Workload workload = this.workload;
+        if (workload != null) {
+            this.workload = null;
+            try {
+                workload.close();
+            } catch (IOException e) {
+                System.err.println(NAME + " service: " + e.getMessage());
+            }
+            // after the buffered data is written
+            report(workload);
+        }
+    }
+
+
+    @Override
+    public EngineData executeGroup(Set<EngineData> inputs) {
+        return null;
+    }
+
+
+    @Override
+    public Set<EngineDataType> getInputDataTypes() {
+        return ClaraUtil.buildDataTypes(Clas12Types.HIPO,
+                                        Clas12Types.EVIO,
+                                        EngineDataType.JSON);
+    }
+
+
+    @Override
+    public Set<EngineDataType> getOutputDataTypes() {
+        return ClaraUtil.buildDataTypes(Clas12Types.HIPO,
+                                        Clas12Types.EVIO);
+    }
+
+
+    @Override
+    public Set<String> getStates() {
+        return null;
+    }
+
+
+    @Override
+    public String getDescription() {
+        return "Replays the disk access patterns of the I/O services on a scratch file.";
+    }
+
+
+    @Override
+    public String getVersion() {
+        return "0.1";
+    }
+
+
+    @Override
+    public String getAuthor() {
+        return "smancill";
+    }
+
+
+    @Override
+    public void reset() {
+        closeWorkload();
+    }
+
+
+    @Override
+    public void destroy() {
+        closeWorkload();
+    }
+
+
+    /*
+     * Runs one pass over the scratch file with each pattern and mode.
+     */
+    public static void main(String[] args) {
+        String dir = args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir");
+        long fileSize = args.length > 1 ? Long.parseLong(args[1]) : DEFAULT_FILE_SIZE;
+        int blockSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_BLOCK_SIZE;
+        int eventSize = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_EVENT_SIZE;
+
+        for (String pattern : PATTERNS) {
+            for (String mode : MODES) {
+                JSONObject params = new JSONObject();
+                params.put("dir", dir);
+                params.put("pattern", pattern);
+                params.put("mode", mode);
+                params.put("file_size", fileSize);
+                params.put("block_size", blockSize);
+                params.put("event_size", eventSize);
+                params.put("report", 0);
+
+                Engine engine = new StorageBenchmark();
+                EngineData config = new EngineData();
+                config.setData(EngineDataType.JSON, params.toString());
+                engine.configure(config);
+
+                long operations = fileSize / (pattern.equals("sequential") ? blockSize : eventSize);
+                EngineData data = new EngineData();
+                data.setData("test_data");
+                for (long i = 0; i < operations; i++) {
+                    engine.execute(data);
+                }
+                engine.destroy();
+            }
+        }
+    }
+}
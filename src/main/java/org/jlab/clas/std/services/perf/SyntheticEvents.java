@@ -0,0 +1,90 @@
+package org.jlab.clas.std.services.perf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.jlab.jnp.hipo.data.HipoEvent;
+
+/**
+ * Creates synthetic events for load tests and benchmarks.
+ */
+public final class SyntheticEvents {
+
+    /** The tag of the generated EVIO banks. */
+    public static final int EVIO_TAG = 1;
+
+    private static final int EVIO_HEADER_WORDS = 2;
+    private static final int EVIO_UINT32 = 0x1;
+    private static final int EVIO_BANK = 0x10;
+
+    private SyntheticEvents() { }
+
+    /**
+     * Returns the minimum size of an EVIO event with the given banks.
+     *
+     * @param banks the number of banks in the event
+     * @return the size in bytes
+     */
+    public static int minEvioSize(int banks) {
+        int headers = banks > 1 ? EVIO_HEADER_WORDS * (banks + 1) : EVIO_HEADER_WORDS;
+        return headers * Integer.BYTES;
+    }
+
+    /**
+     * Creates an EVIO event with a single bank of 32-bit integers.
+     *
+     * @param size the size of the event in bytes (rounded to words)
+     * @param order the byte order of the event
+     * @return the event
+     */
+    public static ByteBuffer evioEvent(int size, ByteOrder order) {
+        return evioEvent(size, 1, order);
+    }
+
+    /**
+     * Creates an EVIO event with the given number of banks of 32-bit integers.
+     * With more than one bank, the event is a bank of banks that contains
+     * the data banks, all of them of about the same size.
+     *
+     * @param size the size of the event in bytes (rounded to words)
+     * @param banks the number of data banks
+     * @param order the byte order of the event
+     * @return the event
+     */
+    public static ByteBuffer evioEvent(int size, int banks, ByteOrder order) {
+        int banksCount = Math.max(banks, 1);
+        int words = Math.max(size, minEvioSize(banksCount)) / Integer.BYTES;
+        ByteBuffer event = ByteBuffer.allocate(words * Integer.BYTES).order(order);
+        if (banksCount == 1) {
+            putDataBank(event, words, 0);
+        } else {
+            event.putInt(words - 1);
+            event.putInt(EVIO_TAG << 16 | EVIO_BANK << 8);
+            int dataWords = words - EVIO_HEADER_WORDS;
+            for (int b = 0; b < banksCount; b++) {
+                int bankWords = dataWords / banksCount + (b < dataWords % banksCount ? 1 : 0);
+                putDataBank(event, bankWords, b + 1);
+            }
+        }
+        event.flip();
+        return event;
+    }
+
+    private static void putDataBank(ByteBuffer event, int words, int num) {
+        event.putInt(words - 1);
+        event.putInt(EVIO_TAG << 16 | EVIO_UINT32 << 8 | (num & 0xff));
+        for (int i = EVIO_HEADER_WORDS; i < words; i++) {
+            event.putInt(i);
+        }
+    }
+
+    /**
+     * Creates a HIPO event.
+     *
+     * @param size the size of the event in bytes
+     * @return the event
+     */
+    public static HipoEvent hipoEvent(int size) {
+        return new HipoEvent(size);
+    }
+}
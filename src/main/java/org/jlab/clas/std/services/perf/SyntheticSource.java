@@ -0,0 +1,250 @@
+package org.jlab.clas.std.services.perf;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.jlab.clara.base.ClaraUtil;
+import org.jlab.clara.engine.Engine;
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clara.std.services.ServiceUtils;
+import org.jlab.clas.std.services.util.Clas12Types;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Returns a synthetic event on each request, to load-test the services of a
+ * chain without reading files.
+ * <p>
+ * A pool of events is generated when the service is configured, and the
+ * events are returned in round-robin order, so the cost of each request is
+ * only a copy of the event. Each request gets its own copy,
+ * so the services of the chain can modify or recycle it.
+ * <p>
+ * Configuration (JSON):
+ * <ul>
+ * <li>{@code type}: {@code evio} (default) or {@code hipo}
+ * <li>{@code size}: the average size of the events in bytes
+ * <li>{@code size_dist}: {@code fixed} (default), {@code uniform} or {@code normal}
+ * <li>{@code size_spread}: the half-width of the uniform distribution,
+ *     or the standard deviation of the normal distribution, in bytes
+ * <li>{@code banks}: the number of banks of the EVIO events
+ *     (not supported for the HIPO events, which have no banks, only the size)
+ * <li>{@code rate}: the maximum number of events per second
+ *     (for all the requests), or 0 for no limit
+ * <li>{@code pool}: the number of pre-generated events
+ * <li>{@code seed}: the seed of the sizes, for repeatable loads
+ * </ul>
+ */
+public class SyntheticSource implements Engine {
+
+    private static final String NAME = "SyntheticSource";
+
+    private static final String DEFAULT_TYPE = "evio";
+    private static final int DEFAULT_SIZE = 16 * 1024;
+    private static final String DEFAULT_SIZE_DIST = "fixed";
+    private static final int DEFAULT_BANKS = 1;
+    private static final int DEFAULT_POOL = 64;
+
+    private volatile EventPool events;
+    private volatile long interval;
+    private final AtomicLong nextSlot = new AtomicLong();
+
+    /**
+     * The pre-generated events.
+     */
+    private static final class EventPool {
+
+        private final EngineDataType type;
+        private final List<Object> events;
+        private final AtomicLong next = new AtomicLong();
+
+        EventPool(EngineDataType type, List<Object> events) {
+            this.type = type;
+            this.events = events;
+        }
+
+        Object next() {
+            Object event = events.get((int) (next.getAndIncrement() % events.size()));
+            if (event instanceof ByteBuffer) {
+                ByteBuffer source = (ByteBuffer) event;
+                ByteBuffer copy = ByteBuffer.allocate(source.remaining()).order(source.order());
+                copy.put(source.duplicate());
+                copy.flip();
+                return copy;
+            }
+            return new HipoEvent(((HipoEvent) event).getDataBuffer().clone());
+        }
+    }
+
+    public SyntheticSource() {
+        events = createPool(new JSONObject());
+    }
+
+    @Override
+    public EngineData configure(EngineData input) {
+        String mimeType = input.getMimeType();
+        if (mimeType.equals(EngineDataType.JSON.mimeType())) {
+            JSONObject data = new JSONObject((String) input.getData());
+            try {
+                EventPool pool = createPool(data);
+                double rate = data.optDouble("rate", 0);
+                System.out.println(NAME + " service config: type = " + pool.type.mimeType());
+                System.out.println(NAME + " service config: pool = " + pool.events.size());
+                System.out.println(NAME + " service config: rate = " + rate);
+                events = pool;
+                interval = rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+                nextSlot.set(System.nanoTime());
+            } catch (JSONException | IllegalArgumentException e) {
+                System.err.println(NAME + " service config: " + e.getMessage());
+            }
+        } else {
+            System.err.println(NAME + " service config: wrong mime-type = " + mimeType);
+        }
+        return null;
+    }
+
+    private static EventPool createPool(JSONObject data) {
+        String type = data.optString("type", DEFAULT_TYPE);
+        int size = data.optInt("size", DEFAULT_SIZE);
+        String sizeDist = data.optString("size_dist", DEFAULT_SIZE_DIST);
+        int spread = data.optInt("size_spread", size / 4);
+        int banks = data.optInt("banks", DEFAULT_BANKS);
+        int poolSize = data.optInt("pool", DEFAULT_POOL);
+        Random random = new Random(data.optLong("seed", 1));
+
+        if (size <= 0 || banks <= 0 || poolSize <= 0) {
+            throw new IllegalArgumentException("invalid event size or pool size");
+        }
+        if (type.equals("hipo") && data.has("banks")) {
+            throw new IllegalArgumentException("banks are only supported for EVIO events");
+        }
+
+        List<Object> events = new ArrayList<>(poolSize);
+        for (int i = 0; i < poolSize; i++) {
+            int eventSize = Math.max(nextSize(random, sizeDist, size, spread), 1);
+            switch (type) {
+                case "evio":
+                    events.add(SyntheticEvents.evioEvent(eventSize, banks, ByteOrder.BIG_ENDIAN));
+                    break;
+                case "hipo":
+                    events.add(SyntheticEvents.hipoEvent(eventSize));
+                    break;
+                default:
+                    throw new IllegalArgumentException("invalid type: " + type);
+            }
+        }
+        EngineDataType dataType = type.equals("hipo") ? Clas12Types.HIPO : Clas12Types.EVIO;
+        return new EventPool(dataType, events);
+    }
+
+    static int nextSize(Random random, String dist, int size, int spread) {
+        switch (dist) {
+            case "fixed":
+                return size;
+            case "uniform":
+                return size - spread + random.nextInt(2 * spread + 1);
+            case "normal":
+                return (int) Math.round(size + random.nextGaussian() * spread);
+            default:
+                throw new IllegalArgumentException("invalid size distribution: " + dist);
+        }
+    }
+
+    @Override
+    public EngineData execute(EngineData input) {
+        EventPool pool = events;
+        EngineData output = new EngineData();
+        try {
+            waitForSlot();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ServiceUtils.setError(output, "Interrupted");
+            return output;
+        }
+        output.setData(pool.type.mimeType(), pool.next());
+        output.setDescription("data");
+        return output;
+    }
+
+    private void waitForSlot() throws InterruptedException {
+        long interval = this.interval;
+        if (interval <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long slot;
+        while (true) {
+            long next = nextSlot.get();
+            // do not send a burst to catch up after an idle period
+            slot = Math.max(next, now);
+            if (nextSlot.compareAndSet(next, slot + interval)) {
+                break;
+            }
+        }
+        long wait = slot - now;
+        while (wait > 0) {
+            LockSupport.parkNanos(wait);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            wait = slot - System.nanoTime();
+        }
+    }
+
+    @Override
+    public EngineData executeGroup(Set<EngineData> inputs) {
+        return null;
+    }
+
+    @Override
+    public Set<EngineDataType> getInputDataTypes() {
+        return ClaraUtil.buildDataTypes(EngineDataType.STRING,
+                                        EngineDataType.JSON);
+    }
+
+    @Override
+    public Set<EngineDataType> getOutputDataTypes() {
+        return ClaraUtil.buildDataTypes(Clas12Types.HIPO,
+                                        Clas12Types.EVIO);
+    }
+
+    @Override
+    public Set<String> getStates() {
+        return null;
+    }
+
+    @Override
+    public String getDescription() {
+        return "Returns pre-generated synthetic events to load-test a chain without files.";
+    }
+
+    @Override
+    public String getVersion() {
+        return "0.1";
+    }
+
+    @Override
+    public String getAuthor() {
+        return "smancill";
+    }
+
+    @Override
+    public void reset() {
+        events = createPool(new JSONObject());
+        interval = 0;
+    }
+
+    @Override
+    public void destroy() {
+        // nothing
+    }
+}
@@ -0,0 +1,134 @@
+package org.jlab.clas.std.services.perf;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The fork-join pool of a benchmark service, with a configurable number of
+ * threads.
+ * <p>
+ * The pool is only created when the first task is submitted.
+ * Configuring the threads shuts down the current pool, which still finishes
+ * the tasks of the running requests, and the next task creates a new pool.
+ * A task rejected because the pool was shut down meanwhile
+ * is submitted again to the new pool.
+ */
+final class WorkerPool {
+
+    private int threads;
+    private ForkJoinPool pool;
+    private boolean closed;
+
+    /**
+     * Creates a pool with the given number of threads.
+     *
+     * @param threads the number of threads
+     */
+    WorkerPool(int threads) {
+        this.threads = checkThreads(threads);
+    }
+
+    private static int checkThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("invalid threads = " + threads);
+        }
+        return threads;
+    }
+
+    /**
+     * Sets the number of threads of the pool used by the next tasks.
+     *
+     * @param threads the number of threads
+     * @throws IllegalArgumentException if the number of threads is not positive
+     */
+    synchronized void setThreads(int threads) {
+        this.threads = checkThreads(threads);
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    private synchronized ForkJoinPool getPool() {
+        if (closed) {
+            throw new RejectedExecutionException("the pool is shut down");
+        }
+        if (pool == null) {
+            pool = new ForkJoinPool(threads);
+        }
+        return pool;
+    }
+
+    /**
+     * Submits a task that returns a result.
+     *
+     * @param <T> the type of the result
+     * @param task the task
+     * @return the running task
+     */
+    <T> ForkJoinTask<T> submit(Callable<T> task) {
+        while (true) {
+            ForkJoinPool current = getPool();
+            try {
+                return current.submit(task);
+            } catch (RejectedExecutionException e) {
+                if (!current.isShutdown()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Submits a task.
+     *
+     * @param task the task
+     * @return the running task
+     */
+    ForkJoinTask<?> submit(Runnable task) {
+        while (true) {
+            ForkJoinPool current = getPool();
+            try {
+                return current.submit(task);
+            } catch (RejectedExecutionException e) {
+                if (!current.isShutdown()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a task and waits for its result.
+     *
+     * @param <T> the type of the result
+     * @param task the task
+     * @return the result of the task
+     */
+    <T> T invoke(ForkJoinTask<T> task) {
+        while (true) {
+            ForkJoinPool current = getPool();
+            try {
+                return current.invoke(task);
+            } catch (RejectedExecutionException e) {
+                if (!current.isShutdown()) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Shuts down the pool. The running tasks are still finished,
+     * but no new task can be submitted.
+     */
+    synchronized void shutdown() {
+        closed = true;
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+}
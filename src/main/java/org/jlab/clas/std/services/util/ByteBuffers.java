@@ -0,0 +1,71 @@
+package org.jlab.clas.std.services.util;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Helpers to pass byte buffers around without copying their content.
+ */
+public final class ByteBuffers {
+
+    private ByteBuffers() { }
+
+    /**
+     * Checks if the remaining bytes of the buffer are exactly its backing array.
+     *
+     * @param buffer the buffer to check
+     * @return true if the backing array can be used without copying
+     */
+    public static boolean isWholeArray(ByteBuffer buffer) {
+        return buffer.hasArray()
+                && buffer.arrayOffset() == 0
+                && buffer.position() == 0
+                && buffer.remaining() == buffer.array().length;
+    }
+
+    /**
+     * Returns the remaining bytes of the buffer as an array.
+     * The backing array is returned when it contains exactly the remaining
+     * bytes. Otherwise (direct buffers, slices, or buffers with a position)
+     * the remaining bytes are copied into a new array.
+     *
+     * @param buffer the buffer with the data
+     * @return an array with the remaining bytes of the buffer
+     */
+    public static byte[] toArray(ByteBuffer buffer) {
+        if (isWholeArray(buffer)) {
+            return buffer.array();
+        }
+        byte[] array = new byte[buffer.remaining()];
+        buffer.duplicate().get(array);
+        return array;
+    }
+
+    /**
+     * Returns a heap buffer whose backing array is exactly the remaining bytes
+     * of the given buffer. The same buffer is returned if that is already
+     * the case, and the byte order is always preserved.
+     *
+     * @param buffer the buffer with the data
+     * @return a heap buffer that can be sent through its backing array
+     */
+    public static ByteBuffer toHeapBuffer(ByteBuffer buffer) {
+        if (isWholeArray(buffer)) {
+            return buffer;
+        }
+        return ByteBuffer.wrap(toArray(buffer)).order(buffer.order());
+    }
+
+    /**
+     * Returns a view of the remaining bytes of the buffer, starting at index
+     * zero and with the same byte order. The content is not copied.
+     *
+     * @param buffer the buffer with the data
+     * @return a view of the remaining bytes
+     */
+    public static ByteBuffer slice(ByteBuffer buffer) {
+        if (buffer.position() == 0 && buffer.limit() == buffer.capacity()) {
+            return buffer;
+        }
+        return buffer.slice().order(buffer.order());
+    }
+}
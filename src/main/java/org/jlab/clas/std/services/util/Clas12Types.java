@@ -6,13 +6,37 @@ import org.jlab.clara.engine.EngineDataType;
 import org.jlab.jnp.hipo.data.HipoEvent;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
 
 // TODO: put this in a common CLAS package
-// TODO: should bytes be copied?
 public final class Clas12Types {
 
     private Clas12Types() { }
 
+    /*
+     * The transport sends the backing array of the serialized buffer,
+     * and the received buffer wraps the message payload.
+     * The serializers only copy the bytes when a buffer does not map exactly
+     * to an array (direct buffers, slices, buffers with a position, or the
+     * pooled buffers of the reader, which are larger than their event),
+     * so exactly the bytes of the event are sent.
+     */
+
+    private static class EvioSerializer implements ClaraSerializer {
+
+        @Override
+        public ByteBuffer write(Object data) throws ClaraException {
+            return ByteBuffers.toHeapBuffer((ByteBuffer) data);
+        }
+
+        @Override
+        public Object read(ByteBuffer buffer) throws ClaraException {
+            return ByteBuffers.slice(buffer);
+        }
+    }
+
     private static class HipoSerializer implements ClaraSerializer {
 
         @Override
@@ -23,13 +47,219 @@ public final class Clas12Types {
 
         @Override
         public Object read(ByteBuffer buffer) throws ClaraException {
-            return new HipoEvent(buffer.array());
+            return new HipoEvent(ByteBuffers.toArray(buffer));
         }
     }
 
+    /*
+     * Same wire format as HipoSerializer, but the received events are only
+     * parsed when the service asks for them. Plain HipoEvent objects are also
+     * accepted when writing, for services that create new events.
+     */
+
+    private static class LazyHipoSerializer implements ClaraSerializer {
+
+        @Override
+        public ByteBuffer write(Object data) throws ClaraException {
+            if (data instanceof LazyHipoEvent) {
+                return ByteBuffer.wrap(((LazyHipoEvent) data).getDataBuffer());
+            }
+            HipoEvent event = (HipoEvent) data;
+            return ByteBuffer.wrap(event.getDataBuffer());
+        }
+
+        @Override
+        public Object read(ByteBuffer buffer) throws ClaraException {
+            return new LazyHipoEvent(ByteBuffers.toArray(buffer));
+        }
+    }
+
+    /*
+     * A bundle is a list of events of the same type, sent as a single message:
+     *
+     *   int count
+     *   count x { byte order, int length, length x byte event }
+     *
+     * The events are serialized with the serializer of the bundled type,
+     * and each event keeps its own byte order.
+     */
+
+    private static class BundleSerializer implements ClaraSerializer {
+
+        private static final byte BIG_ENDIAN = 1;
+        private static final byte LITTLE_ENDIAN = 0;
+
+        private final ClaraSerializer serializer;
+
+        BundleSerializer(ClaraSerializer serializer) {
+            this.serializer = serializer;
+        }
+
+        @Override
+        public ByteBuffer write(Object data) throws ClaraException {
+            List<?> events = (List<?>) data;
+            List<ByteBuffer> buffers = new ArrayList<>(events.size());
+            int size = Integer.BYTES;
+            for (Object event : events) {
+                ByteBuffer buffer = serializer.write(event);
+                buffers.add(buffer);
+                size += 1 + Integer.BYTES + buffer.remaining();
+            }
+            ByteBuffer bundle = ByteBuffer.allocate(size);
+            bundle.putInt(buffers.size());
+            for (ByteBuffer buffer : buffers) {
+                bundle.put(buffer.order() == ByteOrder.BIG_ENDIAN ? BIG_ENDIAN : LITTLE_ENDIAN);
+                bundle.putInt(buffer.remaining());
+                bundle.put(buffer.duplicate());
+            }
+            bundle.flip();
+            return bundle;
+        }
+
+        @Override
+        public Object read(ByteBuffer buffer) throws ClaraException {
+            try {
+                ByteBuffer bundle = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+                int count = bundle.getInt();
+                List<Object> events = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    ByteOrder order = bundle.get() == BIG_ENDIAN
+                            ? ByteOrder.BIG_ENDIAN
+                            : ByteOrder.LITTLE_ENDIAN;
+                    int length = bundle.getInt();
+                    ByteBuffer event = bundle.slice().order(order);
+                    event.limit(length);
+                    events.add(serializer.read(event));
+                    bundle.position(bundle.position() + length);
+                }
+                return events;
+            } catch (RuntimeException e) {
+                throw new ClaraException("Invalid bundle of events", e);
+            }
+        }
+    }
+
+    /*
+     * Times each message on the way in and out of the process,
+     * only when the serializer metrics are enabled.
+     * A bundle is timed as a whole, with the events it contains.
+     */
+
+    private static class MeasuredSerializer implements ClaraSerializer {
+
+        private final ClaraSerializer serializer;
+        private final IoMetrics.Timer writeTimer;
+        private final IoMetrics.Timer readTimer;
+
+        MeasuredSerializer(String name, ClaraSerializer serializer) {
+            this.serializer = serializer;
+            this.writeTimer = SERIALIZER_METRICS.timer(name + "_write");
+            this.readTimer = SERIALIZER_METRICS.timer(name + "_read");
+        }
+
+        @Override
+        public ByteBuffer write(Object data) throws ClaraException {
+            if (!serializerMetricsEnabled) {
+                return serializer.write(data);
+            }
+            long start = System.nanoTime();
+            ByteBuffer buffer = serializer.write(data);
+            writeTimer.record(start, eventCount(data), buffer.remaining());
+            return buffer;
+        }
+
+        @Override
+        public Object read(ByteBuffer buffer) throws ClaraException {
+            if (!serializerMetricsEnabled) {
+                return serializer.read(buffer);
+            }
+            long start = System.nanoTime();
+            int size = buffer.remaining();
+            Object data = serializer.read(buffer);
+            readTimer.record(start, eventCount(data), size);
+            return data;
+        }
+
+        private static int eventCount(Object data) {
+            return data instanceof List ? ((List<?>) data).size() : 1;
+        }
+    }
+
+    /**
+     * The system property that enables the serializer metrics
+     * for the whole process on startup.
+     */
+    public static final String SERIALIZER_METRICS_PROPERTY = "clas12.serializer.metrics";
+
+    private static final IoMetrics SERIALIZER_METRICS = new IoMetrics();
+
+    private static volatile boolean serializerMetricsEnabled =
+            Boolean.getBoolean(SERIALIZER_METRICS_PROPERTY);
+
+    private static final ClaraSerializer EVIO_SERIALIZER = new EvioSerializer();
+    private static final ClaraSerializer HIPO_SERIALIZER = new HipoSerializer();
+    private static final ClaraSerializer LAZY_HIPO_SERIALIZER = new LazyHipoSerializer();
+
     public static final EngineDataType EVIO =
-            new EngineDataType("binary/data-evio", EngineDataType.BYTES.serializer());
+            new EngineDataType("binary/data-evio",
+                               new MeasuredSerializer("evio", EVIO_SERIALIZER));
 
     public static final EngineDataType HIPO =
-            new EngineDataType("binary/data-hipo", new HipoSerializer());
+            new EngineDataType("binary/data-hipo",
+                               new MeasuredSerializer("hipo", HIPO_SERIALIZER));
+
+    /**
+     * The HIPO type, with {@link LazyHipoEvent} as the received data.
+     * It has the same mime-type as {@link #HIPO}, so a service can choose
+     * to receive lazy events without changes to the other services.
+     */
+    public static final EngineDataType HIPO_LAZY =
+            new EngineDataType("binary/data-hipo",
+                               new MeasuredSerializer("hipo_lazy", LAZY_HIPO_SERIALIZER));
+
+    public static final EngineDataType EVIO_BUNDLE =
+            new EngineDataType("binary/data-evio-bundle",
+                               new MeasuredSerializer("evio_bundle",
+                                       new BundleSerializer(EVIO_SERIALIZER)));
+
+    public static final EngineDataType HIPO_BUNDLE =
+            new EngineDataType("binary/data-hipo-bundle",
+                               new MeasuredSerializer("hipo_bundle",
+                                       new BundleSerializer(HIPO_SERIALIZER)));
+
+    public static final EngineDataType HIPO_LAZY_BUNDLE =
+            new EngineDataType("binary/data-hipo-bundle",
+                               new MeasuredSerializer("hipo_lazy_bundle",
+                                       new BundleSerializer(LAZY_HIPO_SERIALIZER)));
+
+    /**
+     * Enables or disables the serializer metrics for the whole process.
+     * They are disabled by default, unless the
+     * {@value #SERIALIZER_METRICS_PROPERTY} system property is true.
+     *
+     * @param enabled true to time the messages of all the CLAS12 types
+     */
+    public static void setSerializerMetrics(boolean enabled) {
+        serializerMetricsEnabled = enabled;
+    }
+
+    /**
+     * Checks if the serializer metrics are enabled.
+     *
+     * @return true if the messages of all the CLAS12 types are timed
+     */
+    public static boolean isSerializerMetricsEnabled() {
+        return serializerMetricsEnabled;
+    }
+
+    /**
+     * Returns the counters of the serializers of all the CLAS12 types
+     * used in this process (the time, events and bytes of each message),
+     * counted while the serializer metrics are enabled.
+     *
+     * @return the serializer counters
+     */
+    public static IoMetrics serializerMetrics() {
+        return SERIALIZER_METRICS;
+    }
 }
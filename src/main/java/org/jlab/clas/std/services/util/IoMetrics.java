@@ -0,0 +1,120 @@
+package org.jlab.clas.std.services.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.json.JSONObject;
+
+/**
+ * Lock-free performance counters of an I/O service.
+ * <p>
+ * Each named operation (i.e. reading an event, or writing it to the file)
+ * has a {@link Timer} with the latency of each call, and the number of events
+ * and bytes processed. The rates are computed over the time since the
+ * counters were created, and all values can be reported as JSON.
+ */
+public final class IoMetrics {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final double NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+    private static final double BYTES_PER_MB = 1024 * 1024;
+
+    private final long start = System.nanoTime();
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Measures the calls to an operation.
+     */
+    public static final class Timer {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder events = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+
+        private Timer() { }
+
+        /**
+         * Records a call that started at the given time.
+         *
+         * @param startNanos the start of the call, from {@link System#nanoTime}
+         * @param eventCount the number of events processed by the call
+         * @param byteCount the number of bytes processed by the call
+         */
+        public void record(long startNanos, int eventCount, long byteCount) {
+            latency.record(System.nanoTime() - startNanos);
+            events.add(eventCount);
+            bytes.add(byteCount);
+        }
+
+        /**
+         * Records a call that processed no data (i.e. a wait).
+         *
+         * @param nanos the duration of the call
+         */
+        public void recordTime(long nanos) {
+            latency.record(nanos);
+        }
+
+        /**
+         * Returns the latency histogram of the calls.
+         *
+         * @return the histogram
+         */
+        public LatencyHistogram latency() {
+            return latency;
+        }
+
+        JSONObject toJson(double seconds) {
+            JSONObject json = new JSONObject();
+            long eventCount = events.sum();
+            long byteCount = bytes.sum();
+            json.put("calls", latency.count());
+            json.put("events", eventCount);
+            json.put("bytes", byteCount);
+            json.put("events_per_s", round(eventCount / seconds));
+            json.put("mb_per_s", round(byteCount / BYTES_PER_MB / seconds));
+            json.put("mean_us", round(latency.mean() / NANOS_PER_MICRO));
+            json.put("p50_us", round(latency.percentile(50) / NANOS_PER_MICRO));
+            json.put("p90_us", round(latency.percentile(90) / NANOS_PER_MICRO));
+            json.put("p99_us", round(latency.percentile(99) / NANOS_PER_MICRO));
+            json.put("max_us", round(latency.max() / NANOS_PER_MICRO));
+            return json;
+        }
+    }
+
+    /**
+     * Gets the timer of the given operation, creating it if needed.
+     *
+     * @param name the name of the operation
+     * @return the timer
+     */
+    public Timer timer(String name) {
+        Timer timer = timers.get(name);
+        if (timer != null) {
+            return timer;
+        }
+        return timers.computeIfAbsent(name, k -> new Timer());
+    }
+
+    /**
+     * Returns all the counters as JSON.
+     *
+     * @return a JSON object with the elapsed time and an entry for each timer
+     */
+    public JSONObject toJson() {
+        double seconds = Math.max(System.nanoTime() - start, 1) / NANOS_PER_SECOND;
+        JSONObject json = new JSONObject();
+        json.put("elapsed_s", round(seconds));
+        for (Map.Entry<String, Timer> e : timers.entrySet()) {
+            json.put(e.getKey(), e.getValue().toJson(seconds));
+        }
+        return json;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,121 @@
+package org.jlab.clas.std.services.util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free histogram of latencies in nanoseconds.
+ * <p>
+ * The values are counted in logarithmic buckets, with {@value #SUB_BUCKETS}
+ * linear sub-buckets for each power of two, so the percentiles have a
+ * relative error below 13%. All the counters are striped
+ * ({@link LongAdder} and {@link LongAccumulator}), so threads recording
+ * at the same time do not contend on a shared counter.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder[] counts = new LongAdder[BUCKETS];
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds (negative values count as 0)
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts[bucket(value)].increment();
+        total.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exp = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exp - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exp = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exp - SUB_BITS)) - 1;
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the count
+     */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean in nanoseconds, or 0 if there are no values
+     */
+    public double mean() {
+        long count = total.sum();
+        return count > 0 ? (double) sum.sum() / count : 0;
+    }
+
+    /**
+     * Returns the maximum recorded value.
+     *
+     * @return the maximum in nanoseconds
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Returns an approximation of the given percentile
+     * (the upper bound of its bucket, capped by the maximum).
+     *
+     * @param percentile the percentile, between 0 and 100
+     * @return the value in nanoseconds, or 0 if there are no values
+     */
+    public long percentile(double percentile) {
+        long[] snapshot = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts[i].sum();
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max((long) Math.ceil(percentile / 100 * count), 1);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max.get());
+            }
+        }
+        return max.get();
+    }
+}
@@ -0,0 +1,77 @@
+package org.jlab.clas.std.services.util;
+
+import org.jlab.jnp.hipo.data.HipoEvent;
+
+/**
+ * A HIPO event that is only parsed when it is accessed.
+ * <p>
+ * The event keeps the raw bytes received from the transport,
+ * and the {@link HipoEvent} (with its index of banks) is created on the first
+ * call to {@link #getEvent()}. A service that only passes the event through
+ * (i.e. a writer) never parses it, and the original bytes are serialized again
+ * untouched.
+ * <p>
+ * The event is not thread-safe, like {@link HipoEvent}.
+ *
+ * @see Clas12Types#HIPO_LAZY
+ */
+public final class LazyHipoEvent {
+
+    private final byte[] data;
+    private HipoEvent event;
+
+    /**
+     * Wraps the given raw event.
+     *
+     * @param data the bytes of the event
+     */
+    public LazyHipoEvent(byte[] data) {
+        this.data = data;
+    }
+
+    private LazyHipoEvent(HipoEvent event) {
+        this.data = null;
+        this.event = event;
+    }
+
+    /**
+     * Wraps an event that is already parsed.
+     *
+     * @param event the event
+     * @return the wrapped event
+     */
+    public static LazyHipoEvent of(HipoEvent event) {
+        return new LazyHipoEvent(event);
+    }
+
+    /**
+     * Returns the parsed event, parsing it on the first call.
+     * Changes to the returned event are seen by {@link #getDataBuffer()}.
+     *
+     * @return the event
+     */
+    public HipoEvent getEvent() {
+        if (event == null) {
+            event = new HipoEvent(data);
+        }
+        return event;
+    }
+
+    /**
+     * Returns the bytes of the event, without parsing it.
+     *
+     * @return the raw event
+     */
+    public byte[] getDataBuffer() {
+        return event != null ? event.getDataBuffer() : data;
+    }
+
+    /**
+     * Checks if the event has been parsed.
+     *
+     * @return true if {@link #getEvent()} was called
+     */
+    public boolean isParsed() {
+        return event != null;
+    }
+}
@@ -0,0 +1,86 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class ByteBufferPoolTest {
+
+    private final ByteBufferPool pool = ByteBufferPool.get(false);
+
+    @Test
+    public void smallRequestsUseTheSmallestClass() throws Exception {
+        ByteBuffer buffer = pool.acquire(100);
+
+        assertThat(buffer.capacity(), is(1024));
+        assertThat(buffer.position(), is(0));
+        assertThat(buffer.limit(), is(100));
+        assertThat(buffer.order(), is(ByteOrder.BIG_ENDIAN));
+    }
+
+    @Test
+    public void requestsUseThePowerOfTwoThatFits() throws Exception {
+        assertThat(pool.acquire(1024).capacity(), is(1024));
+        assertThat(pool.acquire(1025).capacity(), is(2048));
+        assertThat(pool.acquire(5000).capacity(), is(8192));
+        assertThat(pool.acquire((1 << 20) + 1).capacity(), is(1 << 21));
+    }
+
+    @Test
+    public void directPoolGivesDirectBuffers() throws Exception {
+        ByteBuffer buffer = ByteBufferPool.get(true).acquire(3000);
+
+        assertThat(buffer.isDirect(), is(true));
+        assertThat(buffer.capacity(), is(4096));
+    }
+
+    @Test
+    public void releasedBufferIsReusedForTheSameClass() throws Exception {
+        ByteBuffer buffer = pool.acquire(3000);
+        buffer.order(ByteOrder.LITTLE_ENDIAN).position(100);
+        pool.release(buffer);
+
+        ByteBuffer reused = pool.acquire(4000);
+
+        assertThat(reused, is(sameInstance(buffer)));
+        assertThat(reused.position(), is(0));
+        assertThat(reused.limit(), is(4000));
+        assertThat(reused.order(), is(ByteOrder.BIG_ENDIAN));
+    }
+
+    @Test
+    public void buffersNotFromThePoolAreIgnored() throws Exception {
+        ByteBuffer foreign = ByteBuffer.allocate(1 << 14);
+        pool.release(foreign);
+
+        assertThat(pool.acquire(1 << 14), is(not(sameInstance(foreign))));
+    }
+
+    @Test
+    public void slicesOfPooledBuffersAreIgnored() throws Exception {
+        ByteBuffer buffer = pool.acquire(1 << 15);
+        ByteBuffer slice = buffer.slice();
+        pool.release(slice);
+
+        assertThat(pool.acquire(1 << 15), is(not(sameInstance(slice))));
+    }
+
+    @Test
+    public void bufferReleasedTwiceIsOnlyReusedOnce() throws Exception {
+        ByteBuffer buffer = pool.acquire(1 << 16);
+        pool.release(buffer);
+        pool.release(buffer);
+
+        ByteBuffer first = pool.acquire(1 << 16);
+        ByteBuffer second = pool.acquire(1 << 16);
+
+        assertThat(first, is(sameInstance(buffer)));
+        assertThat(second, is(not(sameInstance(buffer))));
+    }
+}
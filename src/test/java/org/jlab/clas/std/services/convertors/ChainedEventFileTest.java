@@ -0,0 +1,195 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteOrder;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class ChainedEventFileTest {
+
+    private final Map<Path, AtomicInteger> opens = new ConcurrentHashMap<>();
+    private final Map<Path, AtomicInteger> closes = new ConcurrentHashMap<>();
+    private final AtomicInteger openFiles = new AtomicInteger();
+    private final AtomicInteger maxOpenFiles = new AtomicInteger();
+
+    /**
+     * A file whose events are the name of the file and the event number.
+     */
+    private final class FakeFile implements EventFile<String> {
+
+        private final Path path;
+        private final int eventCount;
+
+        FakeFile(Path path, int eventCount) {
+            this.path = path;
+            this.eventCount = eventCount;
+            maxOpenFiles.accumulateAndGet(openFiles.incrementAndGet(), Math::max);
+        }
+
+        @Override
+        public int getEventCount() {
+            return eventCount;
+        }
+
+        @Override
+        public ByteOrder getByteOrder() {
+            return ByteOrder.LITTLE_ENDIAN;
+        }
+
+        @Override
+        public String readEvent(int eventNumber) throws EventReaderException {
+            if (eventNumber < 0 || eventNumber >= eventCount) {
+                throw new EventReaderException("Invalid event number: " + eventNumber);
+            }
+            return path + ":" + eventNumber;
+        }
+
+        @Override
+        public void close() {
+            openFiles.decrementAndGet();
+            closes.computeIfAbsent(path, p -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    private ChainedEventFile<String> open(int... eventCounts) throws EventReaderException {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < eventCounts.length; i++) {
+            files.add(Paths.get("file" + i));
+        }
+        return ChainedEventFile.open("test", files, new ChainedEventFile.Opener<String>() {
+            @Override
+            public EventFile<String> open(Path file) {
+                opens.computeIfAbsent(file, p -> new AtomicInteger()).incrementAndGet();
+                return new FakeFile(file, eventCounts[fileNumber(file)]);
+            }
+
+            @Override
+            public int countEvents(Path file) {
+                return eventCounts[fileNumber(file)];
+            }
+        });
+    }
+
+    private static int fileNumber(Path file) {
+        return Integer.parseInt(file.toString().substring(4));
+    }
+
+    private int count(Map<Path, AtomicInteger> calls, String file) {
+        AtomicInteger count = calls.get(Paths.get(file));
+        return count != null ? count.get() : 0;
+    }
+
+    @Test
+    public void eventCountIsTheSumOfAllFiles() throws Exception {
+        ChainedEventFile<String> chain = open(3, 0, 5, 2);
+
+        assertThat(chain.getEventCount(), is(10));
+        assertThat(chain.getFileCount(), is(4));
+        assertThat(chain.getByteOrder(), is(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    public void fileIndexFindsTheFileOfEachEvent() throws Exception {
+        ChainedEventFile<String> chain = open(3, 5, 2);
+
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < chain.getEventCount(); i++) {
+            indexes.add(chain.fileIndex(i));
+        }
+
+        List<Integer> expected = new ArrayList<>();
+        expected.addAll(Collections.nCopies(3, 0));
+        expected.addAll(Collections.nCopies(5, 1));
+        expected.addAll(Collections.nCopies(2, 2));
+        assertThat(indexes, is(expected));
+    }
+
+    @Test
+    public void fileIndexSkipsEmptyFiles() throws Exception {
+        ChainedEventFile<String> chain = open(0, 2, 0, 0, 1, 0);
+
+        assertThat(chain.fileIndex(0), is(1));
+        assertThat(chain.fileIndex(1), is(1));
+        assertThat(chain.fileIndex(2), is(4));
+    }
+
+    @Test
+    public void eventsAreReadFromTheirFiles() throws Exception {
+        ChainedEventFile<String> chain = open(2, 0, 3);
+
+        assertThat(chain.readEvent(0), is("file0:0"));
+        assertThat(chain.readEvent(1), is("file0:1"));
+        assertThat(chain.readEvent(2), is("file2:0"));
+        assertThat(chain.readEvent(4), is("file2:2"));
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void eventAfterTheLastFileIsInvalid() throws Exception {
+        ChainedEventFile<String> chain = open(2, 3);
+
+        chain.readEvent(5);
+    }
+
+    @Test
+    public void filesAreOpenedOnceWhenReadInOrder() throws Exception {
+        ChainedEventFile<String> chain = open(2, 3, 1);
+        for (int i = 0; i < chain.getEventCount(); i++) {
+            chain.readEvent(i);
+        }
+        chain.close();
+
+        for (String file : new String[] {"file0", "file1", "file2"}) {
+            assertThat(count(opens, file), is(1));
+            assertThat(count(closes, file), is(1));
+        }
+    }
+
+    @Test
+    public void atMostTwoFilesAreOpen() throws Exception {
+        ChainedEventFile<String> chain = open(2, 1, 3, 1, 2);
+        assertThat(count(opens, "file4"), is(0));
+
+        for (int i = 0; i < chain.getEventCount(); i++) {
+            chain.readEvent(i);
+        }
+        chain.close();
+
+        assertThat(maxOpenFiles.get(), is(lessThanOrEqualTo(2)));
+        assertThat(openFiles.get(), is(0));
+    }
+
+    @Test
+    public void defaultCountClosesTheFile() throws Exception {
+        ChainedEventFile.Opener<String> opener = file -> new FakeFile(file, 7);
+
+        assertThat(opener.countEvents(Paths.get("file0")), is(7));
+        assertThat(openFiles.get(), is(0));
+    }
+
+    @Test
+    public void fileIsOpenedAgainForEarlierEvents() throws Exception {
+        ChainedEventFile<String> chain = open(2, 3);
+
+        chain.readEvent(3);
+        assertThat(chain.readEvent(1), is("file0:1"));
+        chain.close();
+
+        assertThat(count(opens, "file0"), is(2));
+        assertThat(count(closes, "file0"), is(2));
+        // the next file is opened again in the background
+        assertThat(count(opens, "file1"), is(2));
+        assertThat(count(closes, "file1"), is(2));
+    }
+}
@@ -0,0 +1,50 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class EventOutputsTest {
+
+    private static final Path FILE = Paths.get("/data", "out.evio");
+
+    @Test
+    public void singleFileKeepsItsName() throws Exception {
+        assertThat(EventOutputs.partFile(FILE, -1, -1), is(FILE));
+    }
+
+    @Test
+    public void shardNumberIsAddedToTheName() throws Exception {
+        assertThat(EventOutputs.partFile(FILE, 2, -1), is(Paths.get("/data", "out_2.evio")));
+    }
+
+    @Test
+    public void partNumberIsAddedToTheName() throws Exception {
+        assertThat(EventOutputs.partFile(FILE, -1, 3), is(Paths.get("/data", "out_0003.evio")));
+    }
+
+    @Test
+    public void shardAndPartNumbersAreAddedToTheName() throws Exception {
+        assertThat(EventOutputs.partFile(FILE, 2, 3), is(Paths.get("/data", "out_2_0003.evio")));
+    }
+
+    @Test
+    public void fileWithoutExtensionGetsNoExtension() throws Exception {
+        Path file = Paths.get("/data", "out");
+
+        assertThat(EventOutputs.partFile(file, 1, 0), is(Paths.get("/data", "out_1_0000")));
+    }
+
+    @Test
+    public void shardedOrQueuedOutputIsQueued() throws Exception {
+        assertThat(EventOutputs.isQueued(new JSONObject()), is(false));
+        assertThat(EventOutputs.isQueued(new JSONObject().put("shards", 1)), is(false));
+        assertThat(EventOutputs.isQueued(new JSONObject().put("shards", 2)), is(true));
+        assertThat(EventOutputs.isQueued(new JSONObject().put("write_queue", 8)), is(true));
+    }
+}
@@ -0,0 +1,134 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class EventPrefetcherTest {
+
+    private static final int EVENT_COUNT = 100;
+
+    private final List<Integer> reads = new CopyOnWriteArrayList<>();
+    private EventPrefetcher<Integer> prefetcher;
+
+    @After
+    public void teardown() {
+        if (prefetcher != null) {
+            prefetcher.close();
+        }
+    }
+
+    // the events are their numbers, and event 13 cannot be read
+    private Integer readEvent(int eventNumber) throws EventReaderException {
+        reads.add(eventNumber);
+        if (eventNumber < 0 || eventNumber >= EVENT_COUNT) {
+            throw new EventReaderException("Invalid event number: " + eventNumber);
+        }
+        if (eventNumber == 13) {
+            throw new EventReaderException("corrupted event: " + eventNumber);
+        }
+        return eventNumber;
+    }
+
+    private EventPrefetcher<Integer> prefetcher(int depth, int threads) {
+        prefetcher = new EventPrefetcher<>("test", this::readEvent, EVENT_COUNT, depth, threads);
+        return prefetcher;
+    }
+
+    @Test
+    public void sequentialEventsAreReturnedInOrder() throws Exception {
+        EventPrefetcher<Integer> events = prefetcher(4, 1);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(events.readEvent(i), is(i));
+        }
+    }
+
+    @Test
+    public void eventsAreReturnedInOrderWithManyThreads() throws Exception {
+        EventPrefetcher<Integer> events = prefetcher(8, 4);
+
+        for (int i = 20; i < EVENT_COUNT; i++) {
+            assertThat(events.readEvent(i), is(i));
+        }
+    }
+
+    @Test
+    public void readAheadIsBoundedByTheDepth() throws Exception {
+        EventPrefetcher<Integer> events = prefetcher(4, 1);
+
+        events.readEvent(0);
+        events.close();
+
+        // the requested event, and at most depth events after it
+        assertThat(reads.size(), is(lessThanOrEqualTo(5)));
+    }
+
+    @Test
+    public void nonSequentialRequestRestartsTheReadAhead() throws Exception {
+        EventPrefetcher<Integer> events = prefetcher(4, 1);
+
+        assertThat(events.readEvent(0), is(0));
+        assertThat(events.readEvent(50), is(50));
+        assertThat(events.readEvent(51), is(51));
+        assertThat(events.readEvent(1), is(1));
+    }
+
+    @Test
+    public void readErrorIsReportedForTheFailedEvent() throws Exception {
+        EventPrefetcher<Integer> events = prefetcher(8, 2);
+
+        for (int i = 10; i < 13; i++) {
+            assertThat(events.readEvent(i), is(i));
+        }
+        try {
+            events.readEvent(13);
+            fail("the read error was not reported");
+        } catch (EventReaderException e) {
+            assertThat(e.getMessage(), is("corrupted event: 13"));
+        }
+        // the error does not stop the read-ahead of the next events
+        assertThat(events.readEvent(14), is(14));
+    }
+
+    @Test
+    public void invalidEventIsReportedBySource() throws Exception {
+        EventPrefetcher<Integer> events = prefetcher(4, 1);
+
+        try {
+            events.readEvent(EVENT_COUNT);
+            fail("the invalid event was not reported");
+        } catch (EventReaderException e) {
+            assertThat(e.getMessage(), is("Invalid event number: " + EVENT_COUNT));
+        }
+    }
+
+    @Test
+    public void uncheckedErrorIsWrapped() throws Exception {
+        RuntimeException error = new IllegalStateException("closed file");
+        prefetcher = new EventPrefetcher<>("test", n -> {
+            throw error;
+        }, EVENT_COUNT, 2);
+
+        try {
+            prefetcher.readEvent(0);
+            fail("the read error was not reported");
+        } catch (EventReaderException e) {
+            assertThat(e.getCause(), is(sameInstance((Throwable) error)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void depthMustBePositive() throws Exception {
+        prefetcher(0, 1);
+    }
+}
@@ -0,0 +1,132 @@
+package org.jlab.clas.std.services.convertors;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class EventRangeTest {
+
+    private static EventRange range(JSONObject opts, int eventCount) throws Exception {
+        return EventRange.fromConfig(opts, eventCount);
+    }
+
+    @Test
+    public void defaultRangeIsWholeFile() throws Exception {
+        EventRange range = range(new JSONObject(), 100);
+
+        assertThat(range.isWholeFile(100), is(true));
+        assertThat(range.size(), is(100));
+        assertThat(range.fileEvent(0), is(0));
+    }
+
+    @Test
+    public void explicitRangeIsInclusive() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EventRange.CONF_FIRST_EVENT, 10);
+        opts.put(EventRange.CONF_LAST_EVENT, 19);
+
+        EventRange range = range(opts, 100);
+
+        assertThat(range.isWholeFile(100), is(false));
+        assertThat(range.size(), is(10));
+        assertThat(range.fileEvent(0), is(10));
+        assertThat(range.fileEvent(9), is(19));
+    }
+
+    @Test
+    public void lastEventIsClampedToEventCount() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EventRange.CONF_FIRST_EVENT, 90);
+        opts.put(EventRange.CONF_LAST_EVENT, 1000);
+
+        EventRange range = range(opts, 100);
+
+        assertThat(range.size(), is(10));
+        assertThat(range.fileEvent(9), is(99));
+    }
+
+    @Test
+    public void firstEventAtEndGivesEmptyRange() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EventRange.CONF_FIRST_EVENT, 100);
+
+        EventRange range = range(opts, 100);
+
+        assertThat(range.size(), is(0));
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void firstEventAfterEndIsInvalid() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EventRange.CONF_FIRST_EVENT, 101);
+
+        range(opts, 100);
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void negativeFirstEventIsInvalid() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EventRange.CONF_FIRST_EVENT, -1);
+
+        range(opts, 100);
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void lastEventBeforeFirstEventIsInvalid() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EventRange.CONF_FIRST_EVENT, 20);
+        opts.put(EventRange.CONF_LAST_EVENT, 10);
+
+        range(opts, 100);
+    }
+
+    @Test
+    public void partitionsCoverTheWholeFileInOrder() throws Exception {
+        int eventCount = 103;
+        int partitions = 4;
+        int next = 0;
+        for (int p = 0; p < partitions; p++) {
+            JSONObject opts = new JSONObject();
+            opts.put(EventRange.CONF_PARTITION, p);
+            opts.put(EventRange.CONF_PARTITIONS, partitions);
+
+            EventRange range = range(opts, eventCount);
+
+            assertThat(range.fileEvent(0), is(next));
+            next += range.size();
+        }
+        assertThat(next, is(eventCount));
+    }
+
+    @Test
+    public void morePartitionsThanEventsGiveEmptyRanges() throws Exception {
+        int total = 0;
+        for (int p = 0; p < 8; p++) {
+            JSONObject opts = new JSONObject();
+            opts.put(EventRange.CONF_PARTITION, p);
+            opts.put(EventRange.CONF_PARTITIONS, 8);
+            total += range(opts, 3).size();
+        }
+        assertThat(total, is(3));
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void partitionOutOfRangeIsInvalid() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EventRange.CONF_PARTITION, 4);
+        opts.put(EventRange.CONF_PARTITIONS, 4);
+
+        range(opts, 100);
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void partitionsWithoutPartitionIsInvalid() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EventRange.CONF_PARTITIONS, 4);
+
+        range(opts, 100);
+    }
+}
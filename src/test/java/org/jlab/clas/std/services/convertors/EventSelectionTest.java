@@ -0,0 +1,142 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class EventSelectionTest {
+
+    private static final Predicate<Integer> EVEN = e -> e % 2 == 0;
+
+    /**
+     * A file whose events are their event numbers.
+     */
+    private static class FakeFile implements EventFile<Integer> {
+
+        private final List<Integer> reads = new ArrayList<>();
+        private final List<Integer> peeks = new ArrayList<>();
+
+        @Override
+        public int getEventCount() {
+            return 10;
+        }
+
+        @Override
+        public ByteOrder getByteOrder() {
+            return ByteOrder.BIG_ENDIAN;
+        }
+
+        @Override
+        public Integer readEvent(int eventNumber) throws EventReaderException {
+            reads.add(eventNumber);
+            return eventNumber;
+        }
+
+        @Override
+        public Integer peekEvent(int eventNumber) throws EventReaderException {
+            peeks.add(eventNumber);
+            return eventNumber;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * A file that can check an event without reading it.
+     */
+    private static class PeekingFile extends FakeFile {
+
+        @Override
+        public Integer readEvent(int eventNumber, Predicate<? super Integer> filter)
+                throws EventReaderException {
+            if (!filter.test(peekEvent(eventNumber))) {
+                return null;
+            }
+            return readEvent(eventNumber);
+        }
+    }
+
+    private static EventRange range(int first, int last) throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EventRange.CONF_FIRST_EVENT, first);
+        opts.put(EventRange.CONF_LAST_EVENT, last);
+        return EventRange.fromConfig(opts, 10);
+    }
+
+    private static List<Integer> readAll(EventSelection<Integer> selection, EventFile<Integer> file)
+            throws EventReaderException {
+        List<Integer> events = new ArrayList<>();
+        for (int i = 0; i < selection.size(); i++) {
+            Integer event = selection.readEvent(file, i);
+            if (event != null) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    @Test
+    public void unfilteredSelectionReadsTheRange() throws Exception {
+        FakeFile file = new FakeFile();
+        EventSelection<Integer> selection = new EventSelection<>(range(3, 5), null);
+
+        assertThat(selection.isFiltered(), is(false));
+        assertThat(selection.size(), is(3));
+        assertThat(readAll(selection, file), contains(3, 4, 5));
+    }
+
+    @Test
+    public void nothingIsReadWhenTheSelectionIsCreated() throws Exception {
+        FakeFile file = new FakeFile();
+
+        EventSelection<Integer> selection = new EventSelection<>(range(0, 9), EVEN);
+
+        assertThat(selection.isFiltered(), is(true));
+        assertThat(selection.size(), is(10));
+        assertThat(file.reads.isEmpty(), is(true));
+        assertThat(file.peeks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void rejectedEventsAreNotReturned() throws Exception {
+        FakeFile file = new FakeFile();
+        EventSelection<Integer> selection = new EventSelection<>(range(3, 7), EVEN);
+
+        assertThat(selection.readEvent(file, 0), is(nullValue()));
+        assertThat(selection.readEvent(file, 1), is(4));
+        assertThat(readAll(selection, file), contains(4, 6));
+    }
+
+    @Test
+    public void eachEventIsReadOnceWithoutPeeking() throws Exception {
+        FakeFile file = new FakeFile();
+        EventSelection<Integer> selection = new EventSelection<>(range(0, 5), EVEN);
+
+        readAll(selection, file);
+
+        assertThat(file.reads, contains(0, 1, 2, 3, 4, 5));
+        assertThat(file.peeks.isEmpty(), is(true));
+    }
+
+    @Test
+    public void onlyAcceptedEventsAreReadWhenPeeking() throws Exception {
+        FakeFile file = new PeekingFile();
+        EventSelection<Integer> selection = new EventSelection<>(range(0, 5), EVEN);
+
+        assertThat(readAll(selection, file), contains(0, 2, 4));
+        assertThat(file.peeks, contains(0, 1, 2, 3, 4, 5));
+        assertThat(file.reads, contains(0, 2, 4));
+    }
+}
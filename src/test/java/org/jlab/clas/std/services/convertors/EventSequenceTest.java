@@ -0,0 +1,59 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class EventSequenceTest {
+
+    @Test
+    public void communicationIdWithoutMarkerHasNoSequence() throws Exception {
+        assertThat(EventSequence.fromCommunicationId(0), is(-1L));
+        assertThat(EventSequence.fromCommunicationId(42), is(-1L));
+        assertThat(EventSequence.fromCommunicationId(-1), is(-1L));
+    }
+
+    @Test
+    public void communicationIdWithMarkerHasSequence() throws Exception {
+        assertThat(EventSequence.fromCommunicationId(EventSequence.MARKER), is(0L));
+        assertThat(EventSequence.fromCommunicationId(EventSequence.MARKER | 42), is(42L));
+    }
+
+    @Test
+    public void threadSequenceIsSetFromCommunicationId() throws Exception {
+        EventSequence sequence = new EventSequence();
+
+        sequence.setFrom(EventSequence.MARKER | 7);
+        assertThat(sequence.get(), is(7L));
+
+        sequence.setFrom(7);
+        assertThat(sequence.get(), is(-1L));
+
+        sequence.clear();
+        assertThat(sequence.get(), is(-1L));
+    }
+
+    @Test
+    public void orderedWriterWritesAllEventsFromUnorderedReader() throws Exception {
+        List<String> written = new ArrayList<>();
+        ReorderBuffer<String> buffer = new ReorderBuffer<>("test", written::add, null, 2, 0,
+                                                           null);
+
+        // an unordered reader leaves the same communication ID in all events
+        long id = 3;
+        buffer.write(EventSequence.fromCommunicationId(id), "a");
+        buffer.write(EventSequence.fromCommunicationId(id), "b");
+        buffer.write(EventSequence.fromCommunicationId(id), "c");
+        buffer.write(EventSequence.fromCommunicationId(id), "d");
+
+        assertThat(written, contains("a", "b", "c", "d"));
+
+        buffer.close();
+        assertThat(written, contains("a", "b", "c", "d"));
+    }
+}
@@ -0,0 +1,98 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jlab.clara.std.services.EventWriterException;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class EventWriteQueueTest {
+
+    /**
+     * An output that saves the events in a list,
+     * and fails when it receives a negative event.
+     */
+    private static final class ListOutput implements EventOutput<Integer> {
+
+        private final List<Integer> events = new ArrayList<>();
+        private volatile boolean closed;
+
+        @Override
+        public void writeEvent(Integer event) throws EventWriterException {
+            if (event < 0) {
+                throw new EventWriterException("invalid event: " + event);
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    @Test
+    public void eventsAreWrittenInQueueOrder() throws Exception {
+        ListOutput output = new ListOutput();
+        EventWriteQueue<Integer> queue = new EventWriteQueue<>("test", output, 4, null);
+        List<Integer> expected = new ArrayList<>();
+
+        for (int i = 0; i < 1000; i++) {
+            queue.writeEvent(i);
+            expected.add(i);
+        }
+        queue.close();
+
+        assertThat(output.events, is(expected));
+        assertThat(output.closed, is(true));
+    }
+
+    @Test
+    public void writeErrorIsReportedOnClose() throws Exception {
+        ListOutput output = new ListOutput();
+        EventWriteQueue<Integer> queue = new EventWriteQueue<>("test", output, 16, null);
+
+        queue.writeEvent(1);
+        queue.writeEvent(-2);
+        queue.writeEvent(3);
+
+        try {
+            queue.close();
+            fail("the write error was not reported");
+        } catch (EventWriterException e) {
+            assertThat(e.getMessage(), is("invalid event: -2"));
+        }
+        // the events after the error are discarded, but the output is closed
+        assertThat(output.events, contains(1));
+        assertThat(output.closed, is(true));
+    }
+
+    @Test
+    public void writeErrorIsReportedOnNextWrite() throws Exception {
+        ListOutput output = new ListOutput();
+        EventWriteQueue<Integer> queue = new EventWriteQueue<>("test", output, 1, null);
+
+        queue.writeEvent(-1);
+        try {
+            // the queue is full until the failed event is taken
+            for (int i = 0; i < 100; i++) {
+                queue.writeEvent(i);
+                Thread.sleep(1);
+            }
+            fail("the write error was not reported");
+        } catch (EventWriterException e) {
+            assertThat(e.getMessage(), is("invalid event: -1"));
+        }
+        try {
+            queue.close();
+            fail("the write error was not reported");
+        } catch (EventWriterException e) {
+            assertThat(e.getMessage(), is("invalid event: -1"));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jlab.clara.std.services.EventReaderException;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class EvioConverterFactoryTest {
+
+    private static final List<TestConverter> CREATED = new CopyOnWriteArrayList<>();
+
+    private final SchemaFactory schemas = new SchemaFactory();
+    private final JSONObject opts = new JSONObject();
+
+    /**
+     * A converter that records its instances and configuration.
+     */
+    public static final class TestConverter implements EvioEventConverter {
+
+        private SchemaFactory schemas;
+        private boolean filter;
+        private JSONObject opts;
+
+        public TestConverter() {
+            CREATED.add(this);
+        }
+
+        @Override
+        public void init(SchemaFactory schemas, boolean filter, JSONObject opts)
+                throws EventReaderException {
+            if (opts.optBoolean("fail", false)) {
+                throw new EventReaderException("invalid test options");
+            }
+            this.schemas = schemas;
+            this.filter = filter;
+            this.opts = opts;
+        }
+
+        @Override
+        public HipoEvent convert(ByteBuffer event) throws EventReaderException {
+            return new HipoEvent(event.remaining());
+        }
+    }
+
+    /**
+     * A converter that cannot be created by the factory.
+     */
+    public static final class PrivateConverter implements EvioEventConverter {
+
+        private PrivateConverter() { }
+
+        @Override
+        public void init(SchemaFactory schemas, boolean filter, JSONObject opts) { }
+
+        @Override
+        public HipoEvent convert(ByteBuffer event) {
+            return null;
+        }
+    }
+
+    @Before
+    public void setup() {
+        CREATED.clear();
+    }
+
+    private EvioConverterFactory factory(Class<?> converterClass) throws EventReaderException {
+        return new EvioConverterFactory(converterClass.getName(), schemas, true, opts);
+    }
+
+    @Test
+    public void converterIsCheckedWhenFactoryIsCreated() throws Exception {
+        factory(TestConverter.class);
+
+        assertThat(CREATED, hasSize(1));
+        TestConverter converter = CREATED.get(0);
+        assertThat(converter.schemas, is(sameInstance(schemas)));
+        assertThat(converter.filter, is(true));
+        assertThat(converter.opts, is(sameInstance(opts)));
+    }
+
+    @Test
+    public void checkedConverterIsNotKeptByTheCreatingThread() throws Exception {
+        EvioConverterFactory factory = factory(TestConverter.class);
+
+        EvioEventConverter converter = factory.get();
+
+        assertThat(CREATED, hasSize(2));
+        assertThat(converter, is(sameInstance(CREATED.get(1))));
+    }
+
+    @Test
+    public void eachThreadGetsItsOwnConverter() throws Exception {
+        EvioConverterFactory factory = factory(TestConverter.class);
+
+        EvioEventConverter converter = factory.get();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        EvioEventConverter other;
+        try {
+            other = executor.submit(factory::get).get();
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(factory.get(), is(sameInstance(converter)));
+        assertThat(other, is(not(sameInstance(converter))));
+        assertThat(CREATED, hasSize(3));
+    }
+
+    @Test
+    public void converterConvertsEvents() throws Exception {
+        EvioConverterFactory factory = factory(TestConverter.class);
+
+        HipoEvent event = factory.get().convert(ByteBuffer.allocate(16));
+
+        assertThat(event, is(notNullValue()));
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void unknownClassIsRejected() throws Exception {
+        new EvioConverterFactory("org.example.MissingConverter", schemas, false, opts);
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void classThatIsNotConverterIsRejected() throws Exception {
+        factory(String.class);
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void converterWithoutPublicConstructorIsRejected() throws Exception {
+        factory(PrivateConverter.class);
+    }
+
+    @Test(expected = EventReaderException.class)
+    public void converterInitErrorIsReported() throws Exception {
+        opts.put("fail", true);
+
+        factory(TestConverter.class);
+    }
+}
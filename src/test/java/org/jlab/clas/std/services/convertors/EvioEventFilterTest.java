@@ -0,0 +1,104 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class EvioEventFilterTest {
+
+    // an EVIO bank with a single data word
+    private static ByteBuffer event(int tag, int num, ByteOrder order) {
+        ByteBuffer event = ByteBuffer.allocate(12).order(order);
+        event.putInt(2);
+        event.putInt(tag << 16 | 0x10 << 8 | num);
+        event.putInt(0);
+        event.flip();
+        return event;
+    }
+
+    private static ByteBuffer event(int tag, int num) {
+        return event(tag, num, ByteOrder.BIG_ENDIAN);
+    }
+
+    private static JSONArray values(int... values) {
+        JSONArray array = new JSONArray();
+        for (int v : values) {
+            array.put(v);
+        }
+        return array;
+    }
+
+    @Test
+    public void noFilterIsConfiguredByDefault() throws Exception {
+        assertThat(EvioEventFilter.fromConfig(new JSONObject()), is(nullValue()));
+    }
+
+    @Test
+    public void filterAcceptsConfiguredTag() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EvioEventFilter.CONF_FILTER_TAG, 1);
+
+        EvioEventFilter filter = EvioEventFilter.fromConfig(opts);
+
+        assertThat(filter.test(event(1, 0)), is(true));
+        assertThat(filter.test(event(1, 7)), is(true));
+        assertThat(filter.test(event(2, 0)), is(false));
+    }
+
+    @Test
+    public void filterAcceptsAnyTagOfTheList() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EvioEventFilter.CONF_FILTER_TAG, values(1, 3));
+
+        EvioEventFilter filter = EvioEventFilter.fromConfig(opts);
+
+        assertThat(filter.test(event(1, 0)), is(true));
+        assertThat(filter.test(event(2, 0)), is(false));
+        assertThat(filter.test(event(3, 0)), is(true));
+    }
+
+    @Test
+    public void filterChecksBothTagAndNum() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EvioEventFilter.CONF_FILTER_TAG, 0xffff);
+        opts.put(EvioEventFilter.CONF_FILTER_NUM, values(5, 6));
+
+        EvioEventFilter filter = EvioEventFilter.fromConfig(opts);
+
+        assertThat(filter.test(event(0xffff, 5)), is(true));
+        assertThat(filter.test(event(0xffff, 7)), is(false));
+        assertThat(filter.test(event(0xfffe, 5)), is(false));
+    }
+
+    @Test
+    public void filterUsesTheByteOrderOfTheEvent() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EvioEventFilter.CONF_FILTER_TAG, 0x1234);
+
+        EvioEventFilter filter = EvioEventFilter.fromConfig(opts);
+
+        assertThat(filter.test(event(0x1234, 0, ByteOrder.LITTLE_ENDIAN)), is(true));
+    }
+
+    @Test
+    public void filterChecksTheHeaderAtTheBufferPosition() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(EvioEventFilter.CONF_FILTER_NUM, 9);
+        ByteBuffer buffer = ByteBuffer.allocate(20);
+        buffer.position(8);
+        buffer.put(event(1, 9));
+        buffer.flip();
+        buffer.position(8);
+
+        EvioEventFilter filter = EvioEventFilter.fromConfig(opts);
+
+        assertThat(filter.test(buffer), is(true));
+    }
+}
@@ -0,0 +1,98 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class EvioEventIndexTest {
+
+    private Path dir;
+    private Path file;
+    private Path indexFile;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("index-test");
+        file = dir.resolve("input.evio");
+        indexFile = EvioEventIndex.indexPath(file, null);
+        Files.write(file, new byte[1024]);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_500_000_000_000L));
+    }
+
+    @After
+    public void teardown() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private void saveIndex() throws IOException {
+        long[] offsets = {32, 96, 512};
+        int[] lengths = {64, 416, 256};
+        new EvioEventIndex(file, ByteOrder.LITTLE_ENDIAN, offsets, lengths).save(indexFile);
+    }
+
+    @Test
+    public void indexIsStoredNextToTheFile() throws Exception {
+        assertThat(indexFile, is(dir.resolve("input.evio.idx")));
+        assertThat(EvioEventIndex.indexPath(file, "indexes"),
+                   is(file.getFileSystem().getPath("indexes", "input.evio.idx")));
+    }
+
+    @Test
+    public void savedIndexIsLoaded() throws Exception {
+        saveIndex();
+
+        EvioEventIndex index = EvioEventIndex.load(indexFile, file);
+
+        assertThat(index.getEventCount(), is(3));
+        assertThat(index.getByteOrder(), is(ByteOrder.LITTLE_ENDIAN));
+        assertThat(index.getOffset(1), is(96L));
+        assertThat(index.getLength(1), is(416));
+    }
+
+    @Test
+    public void missingIndexIsNotLoaded() throws Exception {
+        assertThat(EvioEventIndex.load(indexFile, file), is(nullValue()));
+    }
+
+    @Test
+    public void indexIsStaleWhenTheFileSizeChanges() throws Exception {
+        saveIndex();
+        FileTime time = Files.getLastModifiedTime(file);
+        Files.write(file, new byte[16], StandardOpenOption.APPEND);
+        Files.setLastModifiedTime(file, time);
+
+        assertThat(EvioEventIndex.load(indexFile, file), is(nullValue()));
+    }
+
+    @Test
+    public void indexIsStaleWhenTheFileIsModified() throws Exception {
+        saveIndex();
+        Files.setLastModifiedTime(file, FileTime.fromMillis(1_600_000_000_000L));
+
+        assertThat(EvioEventIndex.load(indexFile, file), is(nullValue()));
+    }
+
+    @Test
+    public void indexWithWrongHeaderIsNotLoaded() throws Exception {
+        Files.write(indexFile, new byte[64]);
+
+        assertThat(EvioEventIndex.load(indexFile, file), is(nullValue()));
+    }
+}
@@ -0,0 +1,127 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jlab.clara.std.services.EventWriterException;
+import org.jlab.coda.jevio.EventWriter;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class EvioOutputFileTest {
+
+    private Path dir;
+    private Path file;
+
+    private final EventWriter writer = mock(EventWriter.class);
+    private final AtomicInteger created = new AtomicInteger();
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("evio-output-test");
+        file = dir.resolve("out.evio");
+    }
+
+    @After
+    public void teardown() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private EvioOutputFile open(JSONObject opts, boolean sync) throws EventWriterException {
+        EvioRecordSizer sizer = EvioRecordSizer.fromConfig(opts);
+        return new EvioOutputFile(file, s -> {
+            created.incrementAndGet();
+            return writer;
+        }, sizer, sync, false);
+    }
+
+    @Test
+    public void syncedFileIsForcedAfterClosingTheWriter() throws Exception {
+        // the mocked writer does not create the file
+        Files.write(file, new byte[16]);
+        EvioOutputFile output = open(new JSONObject(), true);
+
+        output.writeEvent(ByteBuffer.allocate(8));
+        output.close();
+
+        verify(writer).close();
+        assertThat(Files.size(file), is(16L));
+    }
+
+    @Test
+    public void syncErrorIsReportedOnClose() throws Exception {
+        EvioOutputFile output = open(new JSONObject(), true);
+
+        try {
+            output.close();
+            fail("the sync error was not reported");
+        } catch (EventWriterException e) {
+            assertThat(e.getMessage(), startsWith("Could not sync"));
+        }
+        verify(writer).close();
+    }
+
+    @Test
+    public void unsyncedFileIsNotOpenedOnClose() throws Exception {
+        EvioOutputFile output = open(new JSONObject(), false);
+
+        output.close();
+
+        verify(writer).close();
+        assertThat(Files.exists(file), is(false));
+    }
+
+    @Test
+    public void adaptiveWriterIsCreatedAfterTheSamples() throws Exception {
+        JSONObject opts = new JSONObject().put(EvioRecordSizer.CONF_ADAPTIVE, true);
+        EvioOutputFile output = open(opts, false);
+
+        for (int i = 0; i < EvioRecordSizer.SAMPLE_EVENTS - 1; i++) {
+            output.writeEvent(ByteBuffer.allocate(8));
+        }
+        assertThat(created.get(), is(0));
+        verify(writer, never()).writeEvent(any(ByteBuffer.class));
+
+        output.writeEvent(ByteBuffer.allocate(8));
+        assertThat(created.get(), is(1));
+        verify(writer, times(EvioRecordSizer.SAMPLE_EVENTS)).writeEvent(any(ByteBuffer.class));
+
+        output.close();
+        assertThat(created.get(), is(1));
+    }
+
+    @Test
+    public void adaptiveWriterIsCreatedOnCloseWithFewEvents() throws Exception {
+        JSONObject opts = new JSONObject().put(EvioRecordSizer.CONF_ADAPTIVE, true);
+        EvioOutputFile output = open(opts, false);
+
+        output.writeEvent(ByteBuffer.allocate(8));
+        output.writeEvent(ByteBuffer.allocate(8));
+        output.close();
+
+        assertThat(created.get(), is(1));
+        verify(writer, times(2)).writeEvent(any(ByteBuffer.class));
+        verify(writer).close();
+    }
+}
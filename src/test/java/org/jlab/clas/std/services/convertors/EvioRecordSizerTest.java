@@ -0,0 +1,120 @@
+package org.jlab.clas.std.services.convertors;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class EvioRecordSizerTest {
+
+    private static EvioRecordSizer adaptive() {
+        return EvioRecordSizer.fromConfig(
+                new JSONObject().put(EvioRecordSizer.CONF_ADAPTIVE, true));
+    }
+
+    private static void addSamples(EvioRecordSizer sizer, int count, int size) {
+        for (int i = 0; i < count; i++) {
+            sizer.addSample(size);
+        }
+    }
+
+    @Test
+    public void defaultSizesAreFixed() throws Exception {
+        EvioRecordSizer sizer = EvioRecordSizer.fromConfig(new JSONObject());
+
+        assertThat(sizer.isAdaptive(), is(false));
+        assertThat(sizer.isReady(), is(true));
+        assertThat(sizer.recordSize(), is(EvioRecordSizer.DEFAULT_RECORD_SIZE));
+        assertThat(sizer.recordEvents(), is(EvioRecordSizer.DEFAULT_RECORD_EVENTS));
+        assertThat(sizer.bufferSize(), is(EvioRecordSizer.DEFAULT_BUFFER_SIZE));
+    }
+
+    @Test
+    public void configuredSizesAreNotChangedBySamples() throws Exception {
+        JSONObject opts = new JSONObject()
+                .put(EvioRecordSizer.CONF_RECORD_SIZE, 2_000_000)
+                .put(EvioRecordSizer.CONF_RECORD_EVENTS, 500)
+                .put(EvioRecordSizer.CONF_BUFFER_SIZE, 8_000_000);
+        EvioRecordSizer sizer = EvioRecordSizer.fromConfig(opts);
+
+        addSamples(sizer, 1000, 50_000);
+
+        assertThat(sizer.recordSize(), is(2_000_000));
+        assertThat(sizer.recordEvents(), is(500));
+        assertThat(sizer.bufferSize(), is(8_000_000));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSizeIsRejected() throws Exception {
+        EvioRecordSizer.fromConfig(new JSONObject().put(EvioRecordSizer.CONF_RECORD_SIZE, 0));
+    }
+
+    @Test
+    public void adaptiveSizerIsReadyAfterTheSamples() throws Exception {
+        EvioRecordSizer sizer = adaptive();
+
+        addSamples(sizer, EvioRecordSizer.SAMPLE_EVENTS - 1, 1000);
+        assertThat(sizer.isReady(), is(false));
+
+        sizer.addSample(1000);
+        assertThat(sizer.isReady(), is(true));
+    }
+
+    @Test
+    public void recordHoldsTheTargetEventsOfAverageSize() throws Exception {
+        EvioRecordSizer sizer = adaptive();
+
+        addSamples(sizer, 50, 4000);
+        addSamples(sizer, 50, 6000);
+
+        assertThat(sizer.recordSize(), is(5000 * EvioRecordSizer.TARGET_RECORD_EVENTS));
+    }
+
+    @Test
+    public void recordHoldsTwoOfTheLargestEvents() throws Exception {
+        EvioRecordSizer sizer = adaptive();
+
+        addSamples(sizer, 1999, 10);
+        sizer.addSample(4_000_000);
+
+        assertThat(sizer.recordSize(), is(8_000_000));
+    }
+
+    @Test
+    public void smallEventsUseTheMinimumRecordSize() throws Exception {
+        EvioRecordSizer sizer = adaptive();
+
+        addSamples(sizer, 100, 10);
+
+        assertThat(sizer.recordSize(), is(EvioRecordSizer.MIN_RECORD_SIZE));
+    }
+
+    @Test
+    public void largeEventsUseTheMaximumRecordSize() throws Exception {
+        EvioRecordSizer sizer = adaptive();
+
+        addSamples(sizer, 100, 100_000);
+
+        assertThat(sizer.recordSize(), is(EvioRecordSizer.MAX_RECORD_SIZE));
+    }
+
+    @Test
+    public void bufferHoldsTwoRecords() throws Exception {
+        EvioRecordSizer sizer = adaptive();
+
+        addSamples(sizer, 100, 12_000);
+
+        assertThat(sizer.recordSize(), is(12_000_000));
+        assertThat(sizer.bufferSize(), is(24_000_000));
+    }
+
+    @Test
+    public void defaultBufferIsKeptForSmallRecords() throws Exception {
+        EvioRecordSizer sizer = adaptive();
+
+        addSamples(sizer, 100, 2000);
+
+        assertThat(sizer.bufferSize(), is(EvioRecordSizer.DEFAULT_BUFFER_SIZE));
+    }
+}
@@ -0,0 +1,57 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.Arrays;
+
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class HipoEventFilterTest {
+
+    private static HipoEvent event(Integer... groups) {
+        return new HipoEvent(16) {
+            @Override
+            public boolean hasGroup(int group) {
+                return Arrays.asList(groups).contains(group);
+            }
+        };
+    }
+
+    @Test
+    public void noFilterIsConfiguredByDefault() throws Exception {
+        assertThat(HipoEventFilter.fromConfig(new JSONObject()), is(nullValue()));
+    }
+
+    @Test
+    public void filterAcceptsEventsWithTheBank() throws Exception {
+        JSONObject opts = new JSONObject();
+        opts.put(HipoEventFilter.CONF_FILTER_BANKS, 331);
+
+        HipoEventFilter filter = HipoEventFilter.fromConfig(opts);
+
+        assertThat(filter.test(event(331)), is(true));
+        assertThat(filter.test(event(20, 331)), is(true));
+        assertThat(filter.test(event(20)), is(false));
+        assertThat(filter.test(event()), is(false));
+    }
+
+    @Test
+    public void filterRequiresAllTheBanks() throws Exception {
+        JSONArray groups = new JSONArray();
+        groups.put(20);
+        groups.put(331);
+        JSONObject opts = new JSONObject();
+        opts.put(HipoEventFilter.CONF_FILTER_BANKS, groups);
+
+        HipoEventFilter filter = HipoEventFilter.fromConfig(opts);
+
+        assertThat(filter.test(event(20, 331, 332)), is(true));
+        assertThat(filter.test(event(331)), is(false));
+        assertThat(filter.test(event(20)), is(false));
+    }
+}
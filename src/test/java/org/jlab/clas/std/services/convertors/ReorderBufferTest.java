@@ -0,0 +1,152 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jlab.clara.engine.ClaraSerializer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ReorderBufferTest {
+
+    private static final ClaraSerializer STRING_SERIALIZER = new ClaraSerializer() {
+
+        @Override
+        public ByteBuffer write(Object data) {
+            return ByteBuffer.wrap(((String) data).getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public Object read(ByteBuffer buffer) {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    private final List<String> written = new ArrayList<>();
+    private Path spillDir;
+
+    @Before
+    public void setup() throws IOException {
+        spillDir = Files.createTempDirectory("reorder-test");
+    }
+
+    @After
+    public void teardown() throws IOException {
+        for (Path file : spillFiles()) {
+            Files.delete(file);
+        }
+        Files.delete(spillDir);
+    }
+
+    private ReorderBuffer<String> createBuffer(int memory, int spill) {
+        return new ReorderBuffer<>("test", written::add, STRING_SERIALIZER,
+                                   memory, spill, spillDir);
+    }
+
+    private List<Path> spillFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(spillDir)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    @Test
+    public void eventsInOrderAreWrittenImmediately() throws Exception {
+        ReorderBuffer<String> buffer = createBuffer(4, 0);
+
+        buffer.write(0, "e0");
+        buffer.write(1, "e1");
+        buffer.write(2, "e2");
+
+        assertThat(written, contains("e0", "e1", "e2"));
+    }
+
+    @Test
+    public void earlyEventsAreHeldUntilTheGapIsFilled() throws Exception {
+        ReorderBuffer<String> buffer = createBuffer(4, 0);
+
+        buffer.write(2, "e2");
+        buffer.write(1, "e1");
+        assertThat(written, is(empty()));
+
+        buffer.write(0, "e0");
+        assertThat(written, contains("e0", "e1", "e2"));
+    }
+
+    @Test
+    public void missingEventsAreSkippedWhenTheBufferIsFull() throws Exception {
+        ReorderBuffer<String> buffer = createBuffer(2, 0);
+
+        buffer.write(1, "e1");
+        buffer.write(2, "e2");
+        assertThat(written, is(empty()));
+
+        buffer.write(4, "e4");
+        assertThat(written, contains("e1", "e2"));
+
+        buffer.write(0, "e0");
+        buffer.write(3, "e3");
+        assertThat(written, contains("e1", "e2", "e0", "e3", "e4"));
+    }
+
+    @Test
+    public void eventsOverTheMemoryCapacityAreSpilled() throws Exception {
+        ReorderBuffer<String> buffer = createBuffer(2, 10);
+
+        buffer.write(5, "e5");
+        buffer.write(3, "e3");
+        buffer.write(1, "e1");
+        buffer.write(4, "e4");
+        buffer.write(2, "e2");
+        assertThat(written, is(empty()));
+
+        buffer.write(0, "e0");
+        assertThat(written, contains("e0", "e1", "e2", "e3", "e4", "e5"));
+
+        buffer.write(6, "e6");
+        assertThat(written, contains("e0", "e1", "e2", "e3", "e4", "e5", "e6"));
+    }
+
+    @Test
+    public void spilledEventsAreSkippedWhenTheSpillIsFull() throws Exception {
+        ReorderBuffer<String> buffer = createBuffer(1, 1);
+
+        buffer.write(3, "e3");
+        buffer.write(2, "e2");
+        assertThat(written, is(empty()));
+
+        buffer.write(4, "e4");
+        assertThat(written, contains("e2", "e3", "e4"));
+    }
+
+    @Test
+    public void closeWritesHeldAndSpilledEventsInOrder() throws Exception {
+        ReorderBuffer<String> buffer = createBuffer(1, 10);
+
+        buffer.write(4, "e4");
+        buffer.write(2, "e2");
+        buffer.write(7, "e7");
+
+        buffer.close();
+
+        assertThat(written, contains("e2", "e4", "e7"));
+        assertThat(spillFiles(), is(empty()));
+    }
+}
@@ -0,0 +1,118 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jlab.clara.std.services.EventWriterException;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RollingOutputTest {
+
+    private static final long MAX_SIZE = 10;
+
+    /**
+     * A part file that saves the events in a list.
+     */
+    private static final class PartOutput implements EventOutput<Integer> {
+
+        private final List<Integer> events = new ArrayList<>();
+        private boolean closed;
+
+        @Override
+        public void writeEvent(Integer event) throws EventWriterException {
+            if (closed) {
+                throw new EventWriterException("closed part");
+            }
+            events.add(event);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private final List<PartOutput> parts = new ArrayList<>();
+
+    // the size of each event is its value
+    private RollingOutput<Integer> open() throws EventWriterException {
+        return new RollingOutput<>(p -> {
+            assertThat(p, is(parts.size()));
+            PartOutput part = new PartOutput();
+            parts.add(part);
+            return part;
+        }, Integer::longValue, MAX_SIZE);
+    }
+
+    @Test
+    public void firstPartIsOpenedOnCreation() throws Exception {
+        RollingOutput<Integer> output = open();
+
+        assertThat(parts, hasSize(1));
+        assertThat(parts.get(0).events, is(empty()));
+
+        output.close();
+        assertThat(parts.get(0).closed, is(true));
+    }
+
+    @Test
+    public void eventsThatFitAreWrittenIntoTheSamePart() throws Exception {
+        RollingOutput<Integer> output = open();
+
+        output.writeEvent(4);
+        output.writeEvent(6);
+        output.close();
+
+        assertThat(parts, hasSize(1));
+        assertThat(parts.get(0).events, contains(4, 6));
+    }
+
+    @Test
+    public void eventThatOverflowsStartsANewPart() throws Exception {
+        RollingOutput<Integer> output = open();
+
+        output.writeEvent(4);
+        output.writeEvent(5);
+        output.writeEvent(2);
+        output.writeEvent(3);
+        output.close();
+
+        assertThat(parts, hasSize(2));
+        assertThat(parts.get(0).events, contains(4, 5));
+        assertThat(parts.get(1).events, contains(2, 3));
+        assertThat(parts.get(0).closed, is(true));
+        assertThat(parts.get(1).closed, is(true));
+    }
+
+    @Test
+    public void largeEventIsWrittenAloneIntoAPart() throws Exception {
+        RollingOutput<Integer> output = open();
+
+        output.writeEvent(15);
+        output.writeEvent(1);
+        output.writeEvent(12);
+        output.close();
+
+        assertThat(parts, hasSize(3));
+        assertThat(parts.get(0).events, contains(15));
+        assertThat(parts.get(1).events, contains(1));
+        assertThat(parts.get(2).events, contains(12));
+    }
+
+    @Test
+    public void closedOutputIsNotClosedAgain() throws Exception {
+        RollingOutput<Integer> output = open();
+
+        output.writeEvent(1);
+        output.close();
+        output.close();
+
+        assertThat(parts, hasSize(1));
+    }
+}
@@ -0,0 +1,104 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.jlab.jnp.hipo.schema.SchemaFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class SchemaCacheTest {
+
+    private static final long TIME = 1_500_000_000_000L;
+
+    private Path dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("schema-test");
+        createFile("DC.json", TIME);
+        createFile("FTOF.json", TIME + 1000);
+        setModified(dir, TIME);
+    }
+
+    @After
+    public void teardown() throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private void createFile(String name, long time) throws IOException {
+        Path file = dir.resolve(name);
+        Files.write(file, "[]".getBytes("UTF-8"));
+        setModified(file, time);
+    }
+
+    private static void setModified(Path path, long time) throws IOException {
+        Files.setLastModifiedTime(path, FileTime.fromMillis(time));
+    }
+
+    private SchemaFactory get() {
+        return SchemaCache.get(dir.toString());
+    }
+
+    @Test
+    public void unchangedDirectoryIsParsedOnce() throws Exception {
+        SchemaFactory schemas = get();
+
+        assertThat(get(), is(sameInstance(schemas)));
+        assertThat(SchemaCache.get(dir.resolve("../" + dir.getFileName()).toString()),
+                   is(sameInstance(schemas)));
+    }
+
+    @Test
+    public void newerFileIsParsedAgain() throws Exception {
+        SchemaFactory schemas = get();
+
+        setModified(dir.resolve("DC.json"), TIME + 5000);
+
+        assertThat(get(), is(not(sameInstance(schemas))));
+    }
+
+    @Test
+    public void olderFileIsParsedAgain() throws Exception {
+        SchemaFactory schemas = get();
+
+        // a copy of an old version that keeps its timestamp
+        setModified(dir.resolve("FTOF.json"), TIME - 5000);
+
+        assertThat(get(), is(not(sameInstance(schemas))));
+    }
+
+    @Test
+    public void addedFileIsParsedAgain() throws Exception {
+        SchemaFactory schemas = get();
+
+        createFile("ECAL.json", TIME);
+        setModified(dir, TIME);
+
+        assertThat(get(), is(not(sameInstance(schemas))));
+    }
+
+    @Test
+    public void removedFileIsParsedAgain() throws Exception {
+        SchemaFactory schemas = get();
+
+        Files.delete(dir.resolve("DC.json"));
+        setModified(dir, TIME);
+
+        assertThat(get(), is(not(sameInstance(schemas))));
+    }
+}
@@ -0,0 +1,83 @@
+package org.jlab.clas.std.services.convertors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jlab.clara.std.services.EventWriterException;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class ShardedOutputTest {
+
+    /**
+     * A shard that saves the events in a list,
+     * and optionally fails when it is closed.
+     */
+    private static final class ShardOutput implements EventOutput<Integer> {
+
+        private final List<Integer> events = new ArrayList<>();
+        private final String closeError;
+        private boolean closed;
+
+        ShardOutput() {
+            this(null);
+        }
+
+        ShardOutput(String closeError) {
+            this.closeError = closeError;
+        }
+
+        @Override
+        public void writeEvent(Integer event) {
+            events.add(event);
+        }
+
+        @Override
+        public void close() throws EventWriterException {
+            closed = true;
+            if (closeError != null) {
+                throw new EventWriterException(closeError);
+            }
+        }
+    }
+
+    @Test
+    public void eventsAreDistributedInRoundRobinOrder() throws Exception {
+        ShardOutput first = new ShardOutput();
+        ShardOutput second = new ShardOutput();
+        ShardOutput third = new ShardOutput();
+        ShardedOutput<Integer> output = new ShardedOutput<>(Arrays.asList(first, second, third));
+
+        for (int i = 0; i < 7; i++) {
+            output.writeEvent(i);
+        }
+        output.close();
+
+        assertThat(first.events, contains(0, 3, 6));
+        assertThat(second.events, contains(1, 4));
+        assertThat(third.events, contains(2, 5));
+    }
+
+    @Test
+    public void allShardsAreClosedAndTheFirstErrorIsReported() throws Exception {
+        ShardOutput first = new ShardOutput();
+        ShardOutput second = new ShardOutput("second shard");
+        ShardOutput third = new ShardOutput("third shard");
+        ShardedOutput<Integer> output = new ShardedOutput<>(Arrays.asList(first, second, third));
+
+        try {
+            output.close();
+            fail("the close error was not reported");
+        } catch (EventWriterException e) {
+            assertThat(e.getMessage(), is("second shard"));
+        }
+        assertThat(first.closed, is(true));
+        assertThat(second.closed, is(true));
+        assertThat(third.closed, is(true));
+    }
+}
@@ -0,0 +1,110 @@
+package org.jlab.clas.std.services.perf;
+
+import java.util.Collections;
+
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class AllocationPressureTest {
+
+    private static final long ALLOCATION = 64 * 1024;
+    private static final int SIZE = 1000;
+
+    private final AllocationPressure engine = new AllocationPressure();
+
+    @After
+    public void teardown() {
+        engine.destroy();
+    }
+
+    private void configure(JSONObject params) {
+        EngineData config = new EngineData();
+        config.setData(EngineDataType.JSON, params.toString());
+        engine.configure(config);
+    }
+
+    private static JSONObject params() {
+        JSONObject params = new JSONObject();
+        params.put("allocation", ALLOCATION);
+        params.put("size", SIZE);
+        params.put("retained", 100 * SIZE);
+        params.put("survival", 0.1);
+        params.put("report", 0);
+        return params;
+    }
+
+    @Test
+    public void eachRequestAllocatesTheConfiguredBytes() throws Exception {
+        configure(params());
+        EngineData data = new EngineData();
+
+        for (int i = 0; i < 10; i++) {
+            engine.execute(data);
+        }
+
+        // the last object of each request may go over the configured bytes
+        assertThat(engine.allocatedBytes(), is(greaterThanOrEqualTo(10 * ALLOCATION)));
+        assertThat(engine.allocatedBytes(), is(lessThan(10 * (ALLOCATION + SIZE))));
+    }
+
+    @Test
+    public void inputEventIsReturnedUnchanged() throws Exception {
+        configure(params());
+        EngineData data = new EngineData();
+        data.setData("test_data");
+
+        EngineData output = engine.execute(data);
+
+        assertThat(output, is(sameInstance(data)));
+        assertThat(output.getData(), is((Object) "test_data"));
+    }
+
+    @Test
+    public void emptyGroupReturnsNothing() throws Exception {
+        assertThat(engine.executeGroup(Collections.<EngineData>emptySet()), is(nullValue()));
+    }
+
+    @Test
+    public void invalidConfigurationKeepsTheProfile() throws Exception {
+        configure(params());
+        engine.execute(new EngineData());
+        long allocated = engine.allocatedBytes();
+
+        configure(params().put("survival", 2.0));
+        configure(params().put("size_dist", "gaussian"));
+
+        assertThat(engine.allocatedBytes(), is(allocated));
+    }
+
+    @Test
+    public void configurationStartsANewProfile() throws Exception {
+        configure(params());
+        engine.execute(new EngineData());
+
+        configure(params());
+
+        assertThat(engine.allocatedBytes(), is(0L));
+    }
+
+    @Test
+    public void concurrentCollectionsAreNotCountedAsPauses() throws Exception {
+        assertThat(AllocationPressure.isConcurrent("ZGC Cycles", "end of GC cycle"), is(true));
+        assertThat(AllocationPressure.isConcurrent("Shenandoah Cycles", "end of GC cycle"),
+                   is(true));
+        assertThat(AllocationPressure.isConcurrent("ConcurrentMarkSweep", "end of major GC"),
+                   is(true));
+        assertThat(AllocationPressure.isConcurrent("G1 Young Generation", "end of minor GC"),
+                   is(false));
+        assertThat(AllocationPressure.isConcurrent("ZGC Pauses", "end of GC pause"), is(false));
+    }
+}
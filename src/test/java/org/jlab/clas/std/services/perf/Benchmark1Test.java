@@ -0,0 +1,76 @@
+package org.jlab.clas.std.services.perf;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class Benchmark1Test {
+
+    private final Benchmark1 engine = new Benchmark1();
+
+    @After
+    public void teardown() {
+        engine.destroy();
+    }
+
+    private void configure(JSONObject params) {
+        EngineData config = new EngineData();
+        config.setData(EngineDataType.JSON, params.toString());
+        engine.configure(config);
+    }
+
+    private static Set<EngineData> inputs(int count) {
+        Set<EngineData> inputs = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            inputs.add(new EngineData());
+        }
+        return inputs;
+    }
+
+    @Test
+    public void threadsCanBeConfiguredWhileRequestsRun() throws Exception {
+        JSONObject params = new JSONObject();
+        params.put("mode", "parallel");
+        params.put("size", 4_000);
+        params.put("iter", 2);
+        params.put("ops", 10);
+        configure(params);
+
+        ExecutorService requests = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<EngineData>> results = new ArrayList<>();
+            List<Set<EngineData>> groups = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                Set<EngineData> group = inputs(4);
+                groups.add(group);
+                results.add(requests.submit(() -> engine.executeGroup(group)));
+            }
+            for (int i = 0; i < 20; i++) {
+                JSONObject threads = new JSONObject();
+                threads.put("threads", i % 3 + 1);
+                configure(threads);
+            }
+            // a request on a replaced pool must not be rejected
+            for (int i = 0; i < results.size(); i++) {
+                assertThat(results.get(i).get(),
+                           is(sameInstance(groups.get(i).iterator().next())));
+            }
+        } finally {
+            requests.shutdown();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.jlab.clas.std.services.perf;
+
+import java.math.BigInteger;
+
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BigFactorialTest {
+
+    private final BigFactorial engine = new BigFactorial();
+
+    @After
+    public void teardown() {
+        engine.destroy();
+    }
+
+    private void configure(int leaf, int threads) {
+        JSONObject params = new JSONObject();
+        params.put("factorial", 1000);
+        params.put("leaf", leaf);
+        params.put("threads", threads);
+        EngineData config = new EngineData();
+        config.setData(EngineDataType.JSON, params.toString());
+        engine.configure(config);
+    }
+
+    @Test
+    public void linearModeComputesTheFactorial() throws Exception {
+        assertThat(engine.compute(1, "linear"), is(BigInteger.ONE));
+        assertThat(engine.compute(10, "linear"), is(BigInteger.valueOf(3_628_800)));
+    }
+
+    @Test
+    public void treeModeGivesTheSameProduct() throws Exception {
+        for (int leaf : new int[] {1, 2, 7, 128, 5000}) {
+            configure(leaf, 2);
+            for (int n : new int[] {1, 2, 3, 100, 1000}) {
+                assertThat(engine.compute(n, "tree"), is(engine.compute(n, "linear")));
+            }
+        }
+    }
+
+    @Test
+    public void parallelModeGivesTheSameProduct() throws Exception {
+        for (int leaf : new int[] {1, 2, 7, 128, 5000}) {
+            configure(leaf, 3);
+            for (int n : new int[] {1, 2, 3, 100, 1000}) {
+                assertThat(engine.compute(n, "parallel"), is(engine.compute(n, "linear")));
+            }
+        }
+    }
+}
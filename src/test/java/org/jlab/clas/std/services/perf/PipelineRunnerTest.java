@@ -0,0 +1,226 @@
+package org.jlab.clas.std.services.perf;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jlab.clara.base.ClaraUtil;
+import org.jlab.clara.engine.Engine;
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clara.std.services.ServiceUtils;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PipelineRunnerTest {
+
+    private static final int EVENT_COUNT = 10;
+    private static final int FAILED_EVENT = 3;
+
+    // the services are created by name, so they report to static fields
+    private static final AtomicInteger PROCESSED = new AtomicInteger();
+    private static final AtomicInteger WRITTEN = new AtomicInteger();
+    private static final AtomicInteger DESTROYED = new AtomicInteger();
+    private static final List<String> OPENED = new CopyOnWriteArrayList<>();
+
+    /**
+     * The common methods of the test services.
+     */
+    public abstract static class TestService implements Engine {
+
+        @Override
+        public EngineData configure(EngineData input) {
+            JSONObject config = new JSONObject((String) input.getData());
+            if (config.optString("action", "").equals("open")) {
+                OPENED.add(config.getString("file"));
+            }
+            return null;
+        }
+
+        @Override
+        public EngineData executeGroup(Set<EngineData> inputs) {
+            return null;
+        }
+
+        @Override
+        public Set<EngineDataType> getInputDataTypes() {
+            return ClaraUtil.buildDataTypes(EngineDataType.SINT32);
+        }
+
+        @Override
+        public Set<EngineDataType> getOutputDataTypes() {
+            return ClaraUtil.buildDataTypes(EngineDataType.SINT32);
+        }
+
+        @Override
+        public Set<String> getStates() {
+            return null;
+        }
+
+        @Override
+        public String getDescription() {
+            return "test service";
+        }
+
+        @Override
+        public String getVersion() {
+            return "1.0";
+        }
+
+        @Override
+        public String getAuthor() {
+            return "test";
+        }
+
+        @Override
+        public void reset() {
+        }
+
+        @Override
+        public void destroy() {
+            DESTROYED.incrementAndGet();
+        }
+    }
+
+    /**
+     * A reader whose events are their numbers.
+     */
+    public static class TestReader extends TestService {
+
+        @Override
+        public EngineData execute(EngineData input) {
+            EngineData output = new EngineData();
+            if (input.getData().equals("count")) {
+                output.setData(EngineDataType.SINT32, EVENT_COUNT);
+            } else {
+                output.setData(EngineDataType.SINT32, input.getData());
+            }
+            return output;
+        }
+    }
+
+    /**
+     * An engine that fails on one event.
+     */
+    public static class TestEngine extends TestService {
+
+        @Override
+        public EngineData execute(EngineData input) {
+            PROCESSED.incrementAndGet();
+            if ((Integer) input.getData() == FAILED_EVENT) {
+                ServiceUtils.setError(input, "failed event");
+            }
+            return input;
+        }
+    }
+
+    /**
+     * A writer that counts the events.
+     */
+    public static class TestWriter extends TestService {
+
+        @Override
+        public EngineData execute(EngineData input) {
+            WRITTEN.incrementAndGet();
+            return input;
+        }
+    }
+
+    @Before
+    public void setup() {
+        PROCESSED.set(0);
+        WRITTEN.set(0);
+        DESTROYED.set(0);
+        OPENED.clear();
+    }
+
+    private static JSONObject service(Class<? extends Engine> engine, String file) {
+        JSONObject service = new JSONObject().put("class", engine.getName());
+        if (file != null) {
+            service.put("file", file);
+        }
+        return service;
+    }
+
+    private static JSONObject config() {
+        JSONObject config = new JSONObject();
+        config.put("reader", service(TestReader.class, "in.evio"));
+        config.put("engines", new JSONArray().put(service(TestEngine.class, null)));
+        config.put("writer", service(TestWriter.class, "out.evio"));
+        return config;
+    }
+
+    @Test
+    public void eventsArePassedThroughTheChain() throws Exception {
+        PipelineRunner runner = new PipelineRunner(config());
+        runner.start();
+
+        JSONObject result = runner.run(4, 5, 40);
+        runner.destroy();
+
+        // the input is read again from the start, and each lap has a failed event
+        assertThat(result.getInt("threads"), is(4));
+        assertThat(result.getLong("events"), is(36L));
+        assertThat(result.getLong("errors"), is(4L));
+        assertThat(PROCESSED.get(), is(45));
+        assertThat(WRITTEN.get(), is(36 + 4));
+        assertThat(DESTROYED.get(), is(3));
+    }
+
+    @Test
+    public void eachRunWritesItsOwnFile() throws Exception {
+        PipelineRunner runner = new PipelineRunner(config());
+        runner.start();
+
+        runner.run(1, 0, 10);
+        runner.run(2, 0, 10);
+        runner.destroy();
+
+        assertThat(OPENED, contains("in.evio", "out_t1.evio", "in.evio", "out_t2.evio"));
+    }
+
+    @Test
+    public void chainWithoutWriterDiscardsTheEvents() throws Exception {
+        JSONObject config = new JSONObject();
+        config.put("reader", service(TestReader.class, "in.evio"));
+        PipelineRunner runner = new PipelineRunner(config);
+
+        JSONObject result = runner.run(2, 0, 20);
+        runner.destroy();
+
+        assertThat(result.getLong("events"), is(20L));
+        assertThat(result.getLong("errors"), is(0L));
+        assertThat(DESTROYED.get(), is(1));
+    }
+
+    @Test(expected = JSONException.class)
+    public void readerFileIsRequired() throws Exception {
+        JSONObject config = new JSONObject();
+        config.put("reader", service(TestReader.class, null));
+        new PipelineRunner(config);
+    }
+
+    @Test
+    public void threadsAreAddedToTheOutputFile() throws Exception {
+        assertThat(PipelineRunner.outputFile("/data/out.evio", 4), is("/data/out_t4.evio"));
+        assertThat(PipelineRunner.outputFile("/data/out", 4), is("/data/out_t4"));
+        assertThat(PipelineRunner.outputFile("/data.dir/out", 4), is("/data.dir/out_t4"));
+        assertThat(PipelineRunner.outputFile("/data/.out", 4), is("/data/.out_t4"));
+    }
+
+    @Test
+    public void configuredThreadCountsAreAtLeastOne() throws Exception {
+        JSONObject config = new JSONObject().put("threads", new JSONArray().put(0).put(2));
+
+        assertThat(PipelineRunner.threadCounts(config), is(Arrays.asList(1, 2)));
+    }
+}
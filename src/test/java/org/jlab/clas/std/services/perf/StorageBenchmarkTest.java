@@ -0,0 +1,110 @@
+package org.jlab.clas.std.services.perf;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clara.engine.EngineStatus;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class StorageBenchmarkTest {
+
+    private static final int EVENT_SIZE = 1024;
+
+    private final StorageBenchmark engine = new StorageBenchmark();
+    private final EngineData event = new EngineData();
+
+    private Path dir;
+
+    @Before
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("storage-test");
+        event.setData("test_data");
+    }
+
+    @After
+    public void teardown() throws IOException {
+        engine.destroy();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path path : stream) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    private void configure(String pattern, String mode) {
+        JSONObject params = new JSONObject();
+        params.put("dir", dir.toString());
+        params.put("pattern", pattern);
+        params.put("mode", mode);
+        params.put("file_size", 64 * EVENT_SIZE);
+        params.put("block_size", 16 * EVENT_SIZE);
+        params.put("event_size", EVENT_SIZE);
+        params.put("report", 0);
+        EngineData config = new EngineData();
+        config.setData(EngineDataType.JSON, params.toString());
+        engine.configure(config);
+    }
+
+    private void execute(int requests) {
+        for (int i = 0; i < requests; i++) {
+            EngineData output = engine.execute(event);
+            assertThat(output.getDescription(), output, is(sameInstance(event)));
+        }
+    }
+
+    private Path outputFile() {
+        return dir.resolve("storage-benchmark.out");
+    }
+
+    @Test
+    public void requestBeforeConfigureIsAnError() throws Exception {
+        EngineData output = engine.execute(event);
+
+        assertThat(output, is(not(sameInstance(event))));
+        assertThat(output.getStatus(), is(EngineStatus.ERROR));
+    }
+
+    @Test
+    public void appendWritesAllEventsOnClose() throws Exception {
+        configure("append", "channel");
+        execute(20);
+        engine.destroy();
+
+        assertThat(Files.size(outputFile()), is(20L * EVENT_SIZE));
+    }
+
+    @Test
+    public void configureAgainClosesTheOldWorkloadFirst() throws Exception {
+        configure("append", "channel");
+        execute(8);
+
+        // the old workload writes its pending events before the file is truncated
+        configure("append", "channel");
+        execute(2);
+        engine.destroy();
+
+        assertThat(Files.size(outputFile()), is(2L * EVENT_SIZE));
+    }
+
+    @Test
+    public void readPatternsRunAfterConfigure() throws Exception {
+        configure("sequential", "stream");
+        execute(8);
+
+        configure("random", "mapped");
+        execute(8);
+    }
+}
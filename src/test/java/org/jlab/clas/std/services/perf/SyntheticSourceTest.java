@@ -0,0 +1,77 @@
+package org.jlab.clas.std.services.perf;
+
+import java.nio.ByteBuffer;
+
+import org.jlab.clara.engine.EngineData;
+import org.jlab.clara.engine.EngineDataType;
+import org.jlab.clas.std.services.util.Clas12Types;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class SyntheticSourceTest {
+
+    private final SyntheticSource engine = new SyntheticSource();
+
+    private void configure(JSONObject params) {
+        EngineData config = new EngineData();
+        config.setData(EngineDataType.JSON, params.toString());
+        engine.configure(config);
+    }
+
+    private Object next() {
+        return engine.execute(new EngineData()).getData();
+    }
+
+    @Test
+    public void eachRequestGetsItsOwnEvioEvent() throws Exception {
+        JSONObject params = new JSONObject();
+        params.put("size", 64);
+        params.put("pool", 1);
+        configure(params);
+
+        ByteBuffer first = (ByteBuffer) next();
+        ByteBuffer second = (ByteBuffer) next();
+
+        assertThat(second.array(), is(not(sameInstance(first.array()))));
+        assertThat(second, is(first));
+
+        first.putInt(0, -1);
+        assertThat(((ByteBuffer) next()).getInt(0), is(second.getInt(0)));
+    }
+
+    @Test
+    public void eachRequestGetsItsOwnHipoEvent() throws Exception {
+        JSONObject params = new JSONObject();
+        params.put("type", "hipo");
+        params.put("size", 64);
+        params.put("pool", 1);
+        configure(params);
+
+        EngineData output = engine.execute(new EngineData());
+        HipoEvent first = (HipoEvent) output.getData();
+        HipoEvent second = (HipoEvent) next();
+
+        assertThat(output.getMimeType(), is(Clas12Types.HIPO.mimeType()));
+        assertThat(second, is(not(sameInstance(first))));
+        assertThat(second.getDataBuffer(), is(not(sameInstance(first.getDataBuffer()))));
+    }
+
+    @Test
+    public void banksAreRejectedForHipoEvents() throws Exception {
+        JSONObject params = new JSONObject();
+        params.put("type", "hipo");
+        params.put("banks", 4);
+        configure(params);
+
+        EngineData output = engine.execute(new EngineData());
+
+        // the invalid configuration is ignored
+        assertThat(output.getMimeType(), is(Clas12Types.EVIO.mimeType()));
+    }
+}
@@ -0,0 +1,76 @@
+package org.jlab.clas.std.services.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.jlab.clara.engine.ClaraSerializer;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class BundleSerializerTest {
+
+    private final ClaraSerializer serializer = Clas12Types.EVIO_BUNDLE.serializer();
+
+    // an EVIO bank: the length in words (excluding itself), the header and the data
+    private static ByteBuffer bank(ByteOrder order, int... data) {
+        ByteBuffer buffer = ByteBuffer.allocate((data.length + 2) * Integer.BYTES).order(order);
+        buffer.putInt(data.length + 1);
+        buffer.putInt(0x00010b01);
+        for (int word : data) {
+            buffer.putInt(word);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private List<?> roundTrip(List<ByteBuffer> events) throws Exception {
+        ByteBuffer message = serializer.write(events);
+        return (List<?>) serializer.read(message);
+    }
+
+    @Test
+    public void emptyBundleRoundTrip() throws Exception {
+        List<ByteBuffer> events = Collections.emptyList();
+
+        ByteBuffer message = serializer.write(events);
+        assertThat(message.remaining(), is(Integer.BYTES));
+
+        List<?> result = (List<?>) serializer.read(message);
+        assertThat(result.size(), is(0));
+    }
+
+    @Test
+    public void mixedByteOrderBundleRoundTrip() throws Exception {
+        List<ByteBuffer> events = Arrays.asList(bank(ByteOrder.BIG_ENDIAN, 1, 2, 3),
+                                                bank(ByteOrder.LITTLE_ENDIAN, 4, 5),
+                                                bank(ByteOrder.BIG_ENDIAN));
+
+        List<?> result = roundTrip(events);
+
+        assertThat(result.size(), is(events.size()));
+        for (int i = 0; i < events.size(); i++) {
+            ByteBuffer event = (ByteBuffer) result.get(i);
+            assertThat(event.order(), is(events.get(i).order()));
+            assertThat(event, is(events.get(i)));
+        }
+        assertThat(((ByteBuffer) result.get(1)).getInt(8), is(4));
+    }
+
+    @Test
+    public void bundledEventsKeepOnlyTheirRemainingBytes() throws Exception {
+        ByteBuffer padded = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+        padded.put(bank(ByteOrder.LITTLE_ENDIAN, 7, 8));
+        padded.flip();
+
+        List<?> result = roundTrip(Collections.singletonList(padded));
+
+        ByteBuffer event = (ByteBuffer) result.get(0);
+        assertThat(event.remaining(), is(16));
+        assertThat(event, is(bank(ByteOrder.LITTLE_ENDIAN, 7, 8)));
+    }
+}
@@ -0,0 +1,78 @@
+package org.jlab.clas.std.services.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import org.jlab.clara.engine.ClaraSerializer;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class EvioSerializerTest {
+
+    private static final byte[] EVENT_BYTES = {
+        0, 0, 0, 3, 0, 1, 11, 1, 0, 0, 0, 5, 0, 0, 0, 6,
+    };
+
+    private final ClaraSerializer serializer = Clas12Types.EVIO.serializer();
+
+    // an EVIO bank with two data words, at the start of a larger buffer
+    private static ByteBuffer pooledEvent() {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        buffer.put(EVENT_BYTES);
+        buffer.flip();
+        return buffer;
+    }
+
+    @Test
+    public void exactArrayIsSentWithoutCopy() throws Exception {
+        ByteBuffer event = ByteBuffer.wrap(EVENT_BYTES.clone());
+
+        ByteBuffer message = serializer.write(event);
+
+        assertThat(message, is(sameInstance(event)));
+    }
+
+    @Test
+    public void pooledEventSendsExactlyItsBytes() throws Exception {
+        ByteBuffer message = serializer.write(pooledEvent());
+
+        // the transport sends the whole backing array
+        assertThat(message.array(), is(EVENT_BYTES));
+    }
+
+    @Test
+    public void eventWithPositionSendsExactlyItsBytes() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(EVENT_BYTES.length + 8);
+        buffer.position(4);
+        buffer.put(EVENT_BYTES);
+        buffer.flip();
+        buffer.position(4);
+
+        ByteBuffer message = serializer.write(buffer);
+
+        assertThat(message.array(), is(EVENT_BYTES));
+    }
+
+    @Test
+    public void byteOrderIsKept() throws Exception {
+        ByteBuffer event = pooledEvent().order(ByteOrder.LITTLE_ENDIAN);
+
+        ByteBuffer message = serializer.write(event);
+
+        assertThat(message.order(), is(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    @Test
+    public void receivedEventIsTheMessagePayload() throws Exception {
+        ByteBuffer message = ByteBuffer.wrap(EVENT_BYTES.clone());
+
+        ByteBuffer result = (ByteBuffer) serializer.read(message);
+
+        assertThat(result.remaining(), is(EVENT_BYTES.length));
+        assertThat(Arrays.equals(ByteBuffers.toArray(result), EVENT_BYTES), is(true));
+    }
+}
@@ -0,0 +1,115 @@
+package org.jlab.clas.std.services.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+
+public class LatencyHistogramTest {
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    private void assertPercentile(double percentile, long expected) {
+        long value = histogram.percentile(percentile);
+        assertThat(value, is(greaterThanOrEqualTo(expected)));
+        // the upper bound of a bucket is at most 1/8 above its lower bound
+        assertThat(value, is(lessThanOrEqualTo(expected + expected / 8)));
+    }
+
+    @Test
+    public void emptyHistogram() throws Exception {
+        assertThat(histogram.count(), is(0L));
+        assertThat(histogram.mean(), is(0.0));
+        assertThat(histogram.max(), is(0L));
+        assertThat(histogram.percentile(50), is(0L));
+    }
+
+    @Test
+    public void smallValuesHaveExactBuckets() throws Exception {
+        for (long v = 0; v < 8; v++) {
+            histogram.record(v);
+        }
+
+        assertThat(histogram.percentile(50), is(3L));
+        assertThat(histogram.percentile(100), is(7L));
+    }
+
+    @Test
+    public void percentileIsCappedByMaximum() throws Exception {
+        histogram.record(1000);
+
+        assertThat(histogram.percentile(50), is(1000L));
+        assertThat(histogram.percentile(99), is(1000L));
+        assertThat(histogram.max(), is(1000L));
+    }
+
+    @Test
+    public void percentilesAreUpperBoundsOfBuckets() throws Exception {
+        for (long v = 1; v <= 1000; v++) {
+            histogram.record(v * 1000);
+        }
+
+        assertPercentile(10, 100_000);
+        assertPercentile(50, 500_000);
+        assertPercentile(90, 900_000);
+        assertThat(histogram.percentile(99), is(greaterThanOrEqualTo(990_000L)));
+        assertThat(histogram.percentile(100), is(1_000_000L));
+    }
+
+    @Test
+    public void countMeanAndMaximum() throws Exception {
+        histogram.record(100);
+        histogram.record(200);
+        histogram.record(600);
+
+        assertThat(histogram.count(), is(3L));
+        assertThat(histogram.mean(), is(closeTo(300, 1e-9)));
+        assertThat(histogram.max(), is(600L));
+    }
+
+    @Test
+    public void negativeValuesCountAsZero() throws Exception {
+        histogram.record(-10);
+
+        assertThat(histogram.count(), is(1L));
+        assertThat(histogram.max(), is(0L));
+        assertThat(histogram.percentile(100), is(0L));
+    }
+
+    @Test
+    public void largestValueIsRecorded() throws Exception {
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.percentile(100), is(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws Exception {
+        int threads = 4;
+        int values = 10_000;
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            long offset = t;
+            workers.add(new Thread(() -> {
+                for (int i = 0; i < values; i++) {
+                    histogram.record(i + offset);
+                }
+            }));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        assertThat(histogram.count(), is((long) threads * values));
+        assertThat(histogram.max(), is((long) values - 1 + threads - 1));
+    }
+}
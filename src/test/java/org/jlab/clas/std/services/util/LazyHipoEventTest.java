@@ -0,0 +1,81 @@
+package org.jlab.clas.std.services.util;
+
+import java.nio.ByteBuffer;
+
+import org.jlab.clara.engine.ClaraSerializer;
+import org.jlab.jnp.hipo.data.HipoEvent;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+public class LazyHipoEventTest {
+
+    private final ClaraSerializer serializer = Clas12Types.HIPO_LAZY.serializer();
+
+    private static byte[] eventBytes() {
+        return new HipoEvent(1024).getDataBuffer();
+    }
+
+    @Test
+    public void rawEventIsNotParsed() throws Exception {
+        byte[] data = eventBytes();
+        LazyHipoEvent event = new LazyHipoEvent(data);
+
+        assertThat(event.isParsed(), is(false));
+        assertThat(event.getDataBuffer(), is(sameInstance(data)));
+        assertThat(event.isParsed(), is(false));
+    }
+
+    @Test
+    public void eventIsParsedOnce() throws Exception {
+        LazyHipoEvent event = new LazyHipoEvent(eventBytes());
+
+        HipoEvent parsed = event.getEvent();
+
+        assertThat(event.isParsed(), is(true));
+        assertThat(event.getEvent(), is(sameInstance(parsed)));
+    }
+
+    @Test
+    public void parsedEventIsWrapped() throws Exception {
+        HipoEvent parsed = new HipoEvent(eventBytes());
+        LazyHipoEvent event = LazyHipoEvent.of(parsed);
+
+        assertThat(event.isParsed(), is(true));
+        assertThat(event.getEvent(), is(sameInstance(parsed)));
+        assertThat(event.getDataBuffer(), is(parsed.getDataBuffer()));
+    }
+
+    @Test
+    public void receivedEventIsNotParsed() throws Exception {
+        byte[] data = eventBytes();
+
+        Object event = serializer.read(ByteBuffer.wrap(data));
+
+        assertThat(event, is(instanceOf(LazyHipoEvent.class)));
+        assertThat(((LazyHipoEvent) event).isParsed(), is(false));
+        assertThat(((LazyHipoEvent) event).getDataBuffer(), is(data));
+    }
+
+    @Test
+    public void unparsedEventIsSentUntouched() throws Exception {
+        LazyHipoEvent event = new LazyHipoEvent(eventBytes());
+
+        ByteBuffer message = serializer.write(event);
+
+        assertThat(message.array(), is(sameInstance(event.getDataBuffer())));
+        assertThat(event.isParsed(), is(false));
+    }
+
+    @Test
+    public void plainHipoEventIsAccepted() throws Exception {
+        HipoEvent event = new HipoEvent(eventBytes());
+
+        ByteBuffer message = serializer.write(event);
+
+        assertThat(message.array(), is(event.getDataBuffer()));
+    }
+}